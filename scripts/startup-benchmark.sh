@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+#
+# Measures the time from launching the application until it answers its first request
+# successfully.
+#
+# Usage: scripts/startup-benchmark.sh [plain|cds] [runs]
+#   plain  runs the regular Spring Boot jar from target/ (mvn package)
+#   cds    runs the AOT-processed thin jar with its AppCDS archive from target/cds/
+#          (mvn -P fast-startup package)
+#
+# The URL that is polled can be changed with BENCHMARK_URL. It defaults to a real page rather
+# than the health endpoint, so the time includes the lazily created beans a first request pays
+# for. Extra JVM options can be passed with JAVA_OPTS, for example the datasource settings of the
+# database to benchmark against.
+
+set -euo pipefail
+
+MODE="${1:-cds}"
+RUNS="${2:-5}"
+URL="${BENCHMARK_URL:-http://localhost:8080/about}"
+PROJECT_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+JAR_NAME="books-RestAPI-0.0.1-SNAPSHOT"
+
+case "$MODE" in
+  plain)
+    WORK_DIR="$PROJECT_DIR/target"
+    COMMAND=(java ${JAVA_OPTS:-} -jar "$JAR_NAME.jar" --spring.profiles.active=prod)
+    ;;
+  cds)
+    WORK_DIR="$PROJECT_DIR/target/cds"
+    COMMAND=(java ${JAVA_OPTS:-} -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true
+      -jar "$JAR_NAME-cds.jar" --spring.profiles.active=prod)
+    ;;
+  *)
+    echo "Unknown mode: $MODE (expected plain or cds)" >&2
+    exit 1
+    ;;
+esac
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+total=0
+for run in $(seq 1 "$RUNS"); do
+  start=$(now_ms)
+  (cd "$WORK_DIR" && exec "${COMMAND[@]}" > /dev/null 2>&1) &
+  pid=$!
+
+  until curl -sf -o /dev/null "$URL"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "Application exited before answering $URL" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+
+  elapsed=$(( $(now_ms) - start ))
+  total=$(( total + elapsed ))
+  echo "Run $run: first successful request after ${elapsed} ms"
+
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+done
+
+echo "Mode $MODE: average time to first successful request $(( total / RUNS )) ms over $RUNS runs"
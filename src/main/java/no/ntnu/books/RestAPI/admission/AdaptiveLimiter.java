@@ -0,0 +1,203 @@
+package no.ntnu.books.RestAPI.admission;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrency limiter whose limit adapts to the observed latency (AIMD).
+ *
+ * While requests complete faster than the latency threshold and the limit is actually being used,
+ * the limit grows by one per completed request. A request that is slower than the threshold, or
+ * that fails, multiplies the limit with the backoff ratio. Requests that find no free slot wait in
+ * a bounded queue for at most the queue timeout. The queue is first come, first served: a freed
+ * slot is handed straight to the request that has waited the longest, and new requests only take
+ * a free slot themselves while nobody is waiting.
+ */
+public class AdaptiveLimiter {
+
+    /**
+     * Why a request was not admitted.
+     */
+    public enum Rejection {
+        /** The queue of waiting requests was full. */
+        QUEUE_FULL,
+
+        /** No slot became free within the queue timeout. */
+        TIMEOUT
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+
+    /**
+     * Create a limiter from the settings of a bulkhead.
+     *
+     * @param settings The bulkhead settings
+     */
+    public AdaptiveLimiter(AdmissionProperties.Bulkhead settings) {
+        this.minLimit = Math.max(1, settings.getMinLimit());
+        this.maxLimit = Math.max(minLimit, settings.getMaxLimit());
+        this.maxQueue = Math.max(0, settings.getMaxQueue());
+        this.queueTimeoutNanos = settings.getQueueTimeout().toNanos();
+        this.latencyThresholdNanos = settings.getLatencyThreshold().toNanos();
+        this.backoffRatio = settings.getBackoffRatio();
+        this.limit = Math.min(maxLimit, Math.max(minLimit, settings.getInitialLimit()));
+    }
+
+    /**
+     * Acquire a slot, waiting in the queue if none is free.
+     *
+     * @return The permit for the acquired slot, to be released when the request completes
+     * @throws AdmissionRejectedException if the queue is full, the wait timed out or the thread
+     *         was interrupted while waiting
+     */
+    public Permit acquire() {
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return new Permit();
+            }
+            if (waiters.size() >= maxQueue) {
+                throw new AdmissionRejectedException(Rejection.QUEUE_FULL);
+            }
+            Waiter waiter = new Waiter();
+            waiters.addLast(waiter);
+            try {
+                long remaining = queueTimeoutNanos;
+                while (!waiter.admitted) {
+                    if (remaining <= 0) {
+                        waiters.remove(waiter);
+                        throw new AdmissionRejectedException(Rejection.TIMEOUT);
+                    }
+                    remaining = waiter.slotHandedOver.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.admitted) {
+                    // The slot was already handed over, pass it on to the next waiter
+                    inFlight--;
+                    admitWaiters();
+                } else {
+                    waiters.remove(waiter);
+                }
+                throw new AdmissionRejectedException(Rejection.TIMEOUT);
+            }
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the current concurrency limit.
+     *
+     * @return The limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of requests currently holding a slot.
+     *
+     * @return The number of requests in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of requests waiting for a slot.
+     *
+     * @return The number of queued requests
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long latencyNanos, boolean failed) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight * 2 >= limit;
+            inFlight--;
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            admitWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand the free slots to the requests that have waited the longest. Must hold the lock.
+     */
+    private void admitWaiters() {
+        while (inFlight < (int) limit && !waiters.isEmpty()) {
+            Waiter waiter = waiters.removeFirst();
+            waiter.admitted = true;
+            inFlight++;
+            waiter.slotHandedOver.signal();
+        }
+    }
+
+    /**
+     * A request waiting in the queue.
+     */
+    private final class Waiter {
+        private final Condition slotHandedOver = lock.newCondition();
+        private boolean admitted;
+    }
+
+    /**
+     * A slot held by one request. Releasing it feeds the latency of the request back into the
+     * limit.
+     */
+    public final class Permit {
+        private final long startNanos = System.nanoTime();
+        private boolean released;
+
+        /**
+         * Release the slot.
+         *
+         * @param failed true if the request failed, which counts as a sign of overload
+         */
+        public void release(boolean failed) {
+            if (released) {
+                return;
+            }
+            released = true;
+            AdaptiveLimiter.this.release(System.nanoTime() - startNanos, failed);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package no.ntnu.books.RestAPI.admission;
+
+import java.util.ArrayList;
+import java.util.List;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registers the admission control filter in front of all other filters, so rejected requests
+ * cost as little as possible.
+ */
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            AdmissionProperties properties, MeterRegistry meterRegistry,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        if (properties.isEnabled()) {
+            fitToPoolSize(properties, connectionPoolSize);
+        }
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionControlFilter(properties, meterRegistry));
+        registration.setEnabled(properties.isEnabled());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Make sure the bulkheads can never admit more requests than there are database connections.
+     * Otherwise admitted requests would queue for a connection inside the pool, where the
+     * bulkheads no longer keep the endpoint classes apart.
+     *
+     * Bulkheads without a max limit get an equal share of the connections the others leave over.
+     *
+     * @param properties The admission control settings, completed with the derived max limits
+     * @param connectionPoolSize The maximum size of the database connection pool
+     * @throws IllegalStateException if the max limits of the bulkheads add up to more than the
+     *         pool size
+     */
+    static void fitToPoolSize(AdmissionProperties properties, int connectionPoolSize) {
+        int configured = 0;
+        List<AdmissionProperties.Bulkhead> unlimited = new ArrayList<>();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            AdmissionProperties.Bulkhead bulkhead = properties.getBulkheads().computeIfAbsent(
+                    endpointClass.getBulkheadName(), name -> new AdmissionProperties.Bulkhead());
+            if (bulkhead.getMaxLimit() > 0) {
+                configured += maxConcurrency(bulkhead);
+            } else {
+                unlimited.add(bulkhead);
+            }
+        }
+        if (!unlimited.isEmpty()) {
+            int share = Math.max(1, (connectionPoolSize - configured) / unlimited.size());
+            for (AdmissionProperties.Bulkhead bulkhead : unlimited) {
+                bulkhead.setMaxLimit(share);
+            }
+        }
+
+        int total = 0;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            total += maxConcurrency(properties.getBulkhead(endpointClass.getBulkheadName()));
+        }
+        if (total > connectionPoolSize) {
+            throw new IllegalStateException("The max limits of the admission bulkheads add up to "
+                    + total + ", more than the " + connectionPoolSize
+                    + " connections of spring.datasource.hikari.maximum-pool-size");
+        }
+    }
+
+    /**
+     * The most requests a bulkhead admits at once, the min limit wins over a lower max limit.
+     */
+    private static int maxConcurrency(AdmissionProperties.Bulkhead bulkhead) {
+        return Math.max(1, Math.max(bulkhead.getMinLimit(), bulkhead.getMaxLimit()));
+    }
+}
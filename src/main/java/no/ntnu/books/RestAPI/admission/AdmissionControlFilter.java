@@ -0,0 +1,129 @@
+package no.ntnu.books.RestAPI.admission;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Servlet filter that puts every admission controlled request through the bulkhead of its
+ * endpoint class.
+ *
+ * Requests that are not admitted get a fast response instead of piling up on the database
+ * connection pool: 429 Too Many Requests when the queue is full, 503 Service Unavailable when they
+ * waited too long for a slot. Both carry a Retry-After header.
+ *
+ * The limit, in-flight and queued requests of each bulkhead are published as the
+ * books.admission.* gauges, and rejections as the books.admission.rejected counter.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private final UrlPathHelper pathHelper = new UrlPathHelper();
+    private final Map<EndpointClass, Bulkhead> bulkheads = new EnumMap<>(EndpointClass.class);
+
+    public AdmissionControlFilter(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String name = endpointClass.getBulkheadName();
+            bulkheads.put(endpointClass,
+                    new Bulkhead(name, properties.getBulkhead(name), meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        EndpointClass endpointClass = EndpointClass.of(request.getMethod(),
+                pathHelper.getPathWithinApplication(request));
+        if (endpointClass == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Bulkhead bulkhead = bulkheads.get(endpointClass);
+        AdaptiveLimiter.Permit permit;
+        try {
+            permit = bulkhead.limiter.acquire();
+        } catch (AdmissionRejectedException e) {
+            bulkhead.reject(e.getRejection(), response);
+            return;
+        }
+
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            permit.release(failed);
+        }
+    }
+
+    /**
+     * The limiter of one endpoint class together with its metrics.
+     */
+    private static final class Bulkhead {
+        private final String name;
+        private final AdaptiveLimiter limiter;
+        private final long retryAfterSeconds;
+        private final Counter queueFullRejections;
+        private final Counter timeoutRejections;
+
+        Bulkhead(String name, AdmissionProperties.Bulkhead settings, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.limiter = new AdaptiveLimiter(settings);
+            this.retryAfterSeconds = Math.max(1, settings.getRetryAfter().toSeconds());
+
+            Gauge.builder("books.admission.limit", limiter, AdaptiveLimiter::getLimit)
+                    .description("Current concurrency limit of the bulkhead")
+                    .tag("bulkhead", name).register(meterRegistry);
+            Gauge.builder("books.admission.inflight", limiter, AdaptiveLimiter::getInFlight)
+                    .description("Requests currently holding a slot in the bulkhead")
+                    .tag("bulkhead", name).register(meterRegistry);
+            Gauge.builder("books.admission.queued", limiter, AdaptiveLimiter::getQueued)
+                    .description("Requests waiting for a slot in the bulkhead")
+                    .tag("bulkhead", name).register(meterRegistry);
+            this.queueFullRejections =
+                    rejectionCounter(meterRegistry, AdaptiveLimiter.Rejection.QUEUE_FULL);
+            this.timeoutRejections =
+                    rejectionCounter(meterRegistry, AdaptiveLimiter.Rejection.TIMEOUT);
+        }
+
+        private Counter rejectionCounter(MeterRegistry meterRegistry,
+                AdaptiveLimiter.Rejection rejection) {
+            return Counter.builder("books.admission.rejected")
+                    .description("Requests rejected by the bulkhead")
+                    .tag("bulkhead", name).tag("reason", rejection.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+
+        void reject(AdaptiveLimiter.Rejection rejection, HttpServletResponse response)
+                throws IOException {
+            HttpStatus status;
+            if (rejection == AdaptiveLimiter.Rejection.QUEUE_FULL) {
+                queueFullRejections.increment();
+                status = HttpStatus.TOO_MANY_REQUESTS;
+            } else {
+                timeoutRejections.increment();
+                status = HttpStatus.SERVICE_UNAVAILABLE;
+            }
+            logger.debug("Rejected request to {} bulkhead: {}", name, rejection);
+            response.setStatus(status.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.setContentType("text/plain");
+            response.getWriter().write("Error, server is busy, try again later");
+        }
+    }
+}
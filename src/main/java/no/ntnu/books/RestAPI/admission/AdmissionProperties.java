@@ -0,0 +1,138 @@
+package no.ntnu.books.RestAPI.admission;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of admission control, bound from the books.admission properties.
+ *
+ * Each endpoint class has its own bulkhead, configured under
+ * books.admission.bulkheads.&lt;name&gt;. The names are listed in {@link EndpointClass}.
+ */
+@ConfigurationProperties(prefix = "books.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<String, Bulkhead> getBulkheads() {
+        return bulkheads;
+    }
+
+    /**
+     * Get the settings of a bulkhead, falling back to the defaults if it is not configured.
+     *
+     * @param name The name of the bulkhead
+     * @return The settings of the bulkhead
+     */
+    public Bulkhead getBulkhead(String name) {
+        return bulkheads.getOrDefault(name, new Bulkhead());
+    }
+
+    /**
+     * Settings of a single bulkhead and its adaptive concurrency limit.
+     */
+    public static class Bulkhead {
+        /** Concurrency limit the bulkhead starts out with. */
+        private int initialLimit = 20;
+
+        /** The limit is never lowered below this. */
+        private int minLimit = 1;
+
+        /**
+         * The limit is never raised above this. 0 means a share of the database connections that
+         * the bulkheads with a configured max limit leave over.
+         */
+        private int maxLimit = 0;
+
+        /** Requests waiting for a free slot, beyond this new requests are rejected at once. */
+        private int maxQueue = 50;
+
+        /** How long a request may wait for a free slot before it is rejected. */
+        private Duration queueTimeout = Duration.ofMillis(500);
+
+        /** Requests slower than this count as a sign of overload and lower the limit. */
+        private Duration latencyThreshold = Duration.ofMillis(250);
+
+        /** Factor the limit is multiplied with when overload is detected. */
+        private double backoffRatio = 0.9;
+
+        /** Value of the Retry-After header sent with rejections. */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+
+        public Duration getQueueTimeout() {
+            return queueTimeout;
+        }
+
+        public void setQueueTimeout(Duration queueTimeout) {
+            this.queueTimeout = queueTimeout;
+        }
+
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+
+        public void setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package no.ntnu.books.RestAPI.admission;
+
+/**
+ * Thrown when a request is not admitted by an {@link AdaptiveLimiter}. Rejections are expected
+ * under load, so no stack trace is captured.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final AdaptiveLimiter.Rejection rejection;
+
+    public AdmissionRejectedException(AdaptiveLimiter.Rejection rejection) {
+        super("Request rejected: " + rejection, null, false, false);
+        this.rejection = rejection;
+    }
+
+    public AdaptiveLimiter.Rejection getRejection() {
+        return rejection;
+    }
+}
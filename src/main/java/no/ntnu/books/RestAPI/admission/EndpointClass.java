@@ -0,0 +1,73 @@
+package no.ntnu.books.RestAPI.admission;
+
+/**
+ * The classes of endpoints that get their own bulkhead. Expensive endpoints are kept apart from
+ * cheap ones, so a burst of full listings cannot starve single book lookups.
+ */
+public enum EndpointClass {
+    /** GET /bookss, loads the whole catalog. */
+    LISTING("listing"),
+
+    /** GET / and GET /books, HTML pages rendering the whole catalog. */
+    PAGES("pages"),
+
+    /** GET /bookss/{id}, loads a single book. */
+    LOOKUP("lookup"),
+
+    /** GET /bookss/{id}/related, loads up to a page of related books. */
+    RELATED("related");
+
+    private final String bulkheadName;
+
+    EndpointClass(String bulkheadName) {
+        this.bulkheadName = bulkheadName;
+    }
+
+    /**
+     * Get the name used for this endpoint class in properties and metrics.
+     *
+     * @return The bulkhead name
+     */
+    public String getBulkheadName() {
+        return bulkheadName;
+    }
+
+    /**
+     * Find the endpoint class of a request.
+     *
+     * @param method The HTTP method of the request
+     * @param path The path of the request within the application
+     * @return The endpoint class, or null if the request is not admission controlled
+     */
+    public static EndpointClass of(String method, String path) {
+        if (!"GET".equals(method)) {
+            return null;
+        }
+        if (path.equals("/bookss") || path.equals("/bookss/")) {
+            return LISTING;
+        }
+        if (path.equals("/") || path.equals("/books")) {
+            return PAGES;
+        }
+        if (path.startsWith("/bookss/") && isNumber(path, "/bookss/".length(), path.length())) {
+            return LOOKUP;
+        }
+        if (path.startsWith("/bookss/") && path.endsWith("/related")
+                && isNumber(path, "/bookss/".length(), path.length() - "/related".length())) {
+            return RELATED;
+        }
+        return null;
+    }
+
+    private static boolean isNumber(String path, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!Character.isDigit(path.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+package no.ntnu.books.RestAPI.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import jakarta.persistence.EntityManagerFactory;
+import no.ntnu.books.RestAPI.readmodel.CatalogReadModel;
+import no.ntnu.books.RestAPI.related.RelatedBooksService;
+
+/**
+ * Configuration of how the application starts up.
+ */
+@Configuration
+public class StartupConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupConfig.class);
+
+    /**
+     * Run the schema migrations at startup unless books.startup.migrate is false. Migrations are
+     * skipped in the AppCDS training run, which has no database to migrate.
+     *
+     * @param migrate Whether the migrations should run
+     * @return The migration strategy
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${books.startup.migrate:true}") boolean migrate) {
+        return flyway -> {
+            if (migrate) {
+                flyway.migrate();
+            } else {
+                logger.info("Skipping schema migrations");
+            }
+        };
+    }
+
+    /**
+     * Beans that are still created at startup when lazy initialization is on. Migrating the
+     * schema, bootstrapping Hibernate, loading the read model and starting the background build of
+     * the related books index are left to startup, so the first request after a node joins does
+     * not pay for them.
+     *
+     * @return The filter excluding these beans from lazy initialization
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class,
+                EntityManagerFactory.class, CatalogReadModel.class, RelatedBooksService.class);
+    }
+}
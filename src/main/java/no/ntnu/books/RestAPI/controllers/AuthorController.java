@@ -0,0 +1,94 @@
+package no.ntnu.books.RestAPI.controllers;
+
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import io.swagger.v3.oas.annotations.Operation;
+import no.ntnu.books.RestAPI.models.AuthorSummary;
+import no.ntnu.books.RestAPI.models.Book;
+import no.ntnu.books.RestAPI.services.AuthorService;
+
+/**
+ * Controller for author REST API. Provides endpoints for reading authors and their books.
+ */
+@RestController
+@RequestMapping("/authors")
+public class AuthorController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private AuthorService authorService;
+
+    /**
+     * Get a page of authors, ordered by ID, with the number of books each has written.
+     *
+     * @param page The page number, starting at 0
+     * @param size The number of authors per page
+     * @return A page of authors
+     */
+    @Operation(summary = "List authors",
+            description = "Returns a page of authors with the number of books each has written.")
+    @GetMapping
+    public Page<AuthorSummary> getAll(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return authorService.getAuthors(pageRequest(page, size, Sort.by("id")));
+    }
+
+    /**
+     * Retrieves an author with the specified ID.
+     *
+     * @param id The ID of the author to retrieve.
+     * @return The ResponseEntity containing the author if found, or a not found response if the
+     *         author does not exist.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<AuthorSummary> getOne(@PathVariable int id) {
+        Optional<AuthorSummary> author = authorService.findAuthor(id);
+        if (author.isPresent()) {
+            return ResponseEntity.ok(author.get());
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Retrieves a slice of the books written by the author with the specified ID, ordered by book
+     * ID. To get the next slice, pass the ID of the last book in this one as {@code after}.
+     *
+     * @param id The ID of the author.
+     * @param after The ID of the last book already seen, 0 to start from the first book
+     * @param size The number of books per slice
+     * @return The ResponseEntity containing the slice of books, or a not found response if the
+     *         author does not exist.
+     */
+    @Operation(summary = "List the books of an author",
+            description = "Returns the books written by the author after the given book ID, "
+                    + "ordered by ID. Pass the ID of the last book returned as 'after' to get the "
+                    + "next books.")
+    @GetMapping("/{id}/books")
+    public ResponseEntity<Slice<Book>> getBooks(@PathVariable int id,
+            @RequestParam(defaultValue = "0") int after,
+            @RequestParam(defaultValue = "20") int size) {
+        Optional<Slice<Book>> books = authorService.getBooksByAuthor(id, Math.max(0, after),
+                Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        if (books.isPresent()) {
+            return ResponseEntity.ok(books.get());
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private static PageRequest pageRequest(int page, int size, Sort sort) {
+        return PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_PAGE_SIZE)), sort);
+    }
+}
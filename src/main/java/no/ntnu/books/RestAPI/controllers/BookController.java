@@ -4,8 +4,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.List;
 import java.util.Optional;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,7 +16,11 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import no.ntnu.books.RestAPI.models.Book;
-import no.ntnu.books.RestAPI.repositories.BookRepository;
+import no.ntnu.books.RestAPI.models.BookChangePage;
+import no.ntnu.books.RestAPI.models.RelatedBook;
+import no.ntnu.books.RestAPI.related.RelatedBooksService;
+import no.ntnu.books.RestAPI.services.BookChangeFeed;
+import no.ntnu.books.RestAPI.services.BookService;
 
 @RestController
 @RequestMapping("/bookss")
@@ -25,7 +32,13 @@ public class BookController {
     private static final Logger logger = LoggerFactory.getLogger(BookController.class);
 
     @Autowired
-    private BookRepository bookRepository;
+    private BookService bookService;
+
+    @Autowired
+    private BookChangeFeed changeFeed;
+
+    @Autowired
+    private RelatedBooksService relatedBooksService;
 
     /**
      * Get all books from the database
@@ -35,7 +48,7 @@ public class BookController {
     @GetMapping
     public Iterable<Book> getAll() {
         logger.warn("Retrieving all books");
-        return bookRepository.findAll();
+        return bookService.getAllBooks();
     }
 
     /**
@@ -47,7 +60,7 @@ public class BookController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<Book> getOne(@PathVariable int id) {
-        Optional<Book> book = bookRepository.findById(id);
+        Optional<Book> book = bookService.findBook(id);
         if (book.isPresent()) {
             return ResponseEntity.ok(book.get());
         } else {
@@ -55,6 +68,26 @@ public class BookController {
         }
     }
 
+    /**
+     * Retrieves the books most related to the book with the specified ID, ranked by the authors
+     * and tags they share with it.
+     *
+     * @param id The ID of the book.
+     * @param limit The maximum number of related books to return.
+     * @return The ResponseEntity containing the related books, most related first, or a not found
+     *         response if the book does not exist.
+     */
+    @Operation(summary = "Get books related to a book",
+            description = "Ranks other books by the weighted overlap of shared authors and tags.")
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<RelatedBook>> getRelated(@PathVariable int id,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (!bookService.bookExists(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(relatedBooksService.getRelatedBooks(id, limit));
+    }
+
     @Operation(summary = "Add a new book to the collection",
             description = "Creates a new book entry in the system. The book must have a unique ID and a non-empty title.")
     @ApiResponses(value = {
@@ -74,7 +107,7 @@ public class BookController {
             return ResponseEntity.badRequest().build();
         }
 
-        Book savedBook = bookRepository.save(book);
+        Book savedBook = bookService.addBook(book);
         return new ResponseEntity<>(savedBook, HttpStatus.CREATED);
     }
 
@@ -87,9 +120,7 @@ public class BookController {
      */
     @PutMapping("/{id}")
     public ResponseEntity<String> updateBook(@PathVariable int id, @RequestBody Book book) {
-        Optional<Book> existingBook = bookRepository.findById(id);
-
-        if (!existingBook.isPresent()) {
+        if (!bookService.bookExists(id)) {
             return new ResponseEntity<>("Error, book not found", HttpStatus.NOT_FOUND);
         }
 
@@ -98,9 +129,9 @@ public class BookController {
                     HttpStatus.BAD_REQUEST);
         }
 
-        // Set the ID to ensure we're updating the correct book
-        book.setId(id);
-        bookRepository.save(book);
+        if (!bookService.updateBook(id, book)) {
+            return new ResponseEntity<>("Error, book not found", HttpStatus.NOT_FOUND);
+        }
         return new ResponseEntity<>("Book updated", HttpStatus.OK);
     }
 
@@ -114,13 +145,43 @@ public class BookController {
     @Operation(hidden = true)
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteBook(@PathVariable int id) {
-        Optional<Book> existingBook = bookRepository.findById(id);
-
-        if (!existingBook.isPresent()) {
+        if (!bookService.deleteBook(id)) {
             return new ResponseEntity<>("Error, book not found", HttpStatus.NOT_FOUND);
         }
 
-        bookRepository.delete(existingBook.get());
         return new ResponseEntity<>("Book deleted", HttpStatus.OK);
     }
+
+    /**
+     * Get the changes made to books after the given sequence number. Consumers keep the
+     * {@code nextSince} value of the last page they read and pass it back to only receive what
+     * changed since then.
+     *
+     * @param since Sequence number of the last change already seen, 0 for the whole change log
+     * @param limit The maximum number of changes to return
+     * @return A page of changes, oldest first
+     */
+    @Operation(summary = "Get changes made to the book collection",
+            description = "Returns the changes recorded after the given sequence number, oldest first.")
+    @GetMapping("/changes")
+    public BookChangePage getChanges(@RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit) {
+        return changeFeed.getChanges(since, limit);
+    }
+
+    /**
+     * Stream changes made to books as Server-Sent Events. A reconnecting client sends the
+     * Last-Event-ID header and resumes right after the last change it received.
+     *
+     * @param since Sequence number of the last change already seen, 0 for the whole change log
+     * @param lastEventId Sequence number sent by a reconnecting client, takes precedence over since
+     * @return The event stream
+     */
+    @Operation(summary = "Stream changes made to the book collection",
+            description = "Replays the changes after the given sequence number, then streams new changes as they happen.")
+    @GetMapping(path = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(defaultValue = "0") long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeFeed.subscribe(lastEventId != null ? lastEventId : since);
+    }
 }
@@ -0,0 +1,28 @@
+package no.ntnu.books.RestAPI.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * An author together with the number of books they have written.
+ *
+ * @param id Unique identifier for the author
+ * @param firstname Author's first name
+ * @param lastName Author's last name
+ * @param birthYear Year the author was born
+ * @param bookCount Number of books written by the author
+ */
+@Schema(description = "An author with the number of books written")
+public record AuthorSummary(int id, String firstname, String lastName, int birthYear,
+        long bookCount) {
+
+    /**
+     * Create a summary of an author.
+     *
+     * @param author The author
+     * @param bookCount Number of books written by the author
+     */
+    public AuthorSummary(Author author, long bookCount) {
+        this(author.getId(), author.getFirstname(), author.getLastName(), author.getBirthYear(),
+                bookCount);
+    }
+}
@@ -12,6 +12,7 @@ import jakarta.persistence.CascadeType;
 import jakarta.persistence.FetchType;
 import java.util.HashSet;
 import java.util.Set;
+import org.hibernate.annotations.BatchSize;
 
 /**
  * Represents a book with specific attributes.
@@ -39,7 +40,9 @@ public class Book {
     @Schema(description = "Total number of pages in the book", example = "180")
     private int numberOfPages;
 
+    // Loaded for up to 100 books at a time, so listings do not need a query per book
     @ManyToMany(mappedBy = "books")
+    @BatchSize(size = 100)
     @Schema(description = "Authors of the book")
     private final Set<Author> authors = new HashSet<>();
 
@@ -0,0 +1,147 @@
+package no.ntnu.books.RestAPI.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Represents one entry in the book change log.
+ *
+ * Every add, update and delete of a book is recorded as a change in the same transaction as the
+ * write itself. The id doubles as the sequence number consumers use to ask for everything that
+ * happened after a change they have already seen. Sequence numbers are handed out in commit order,
+ * so once a change is visible every change before it is visible too.
+ *
+ * For created and updated books the change carries the new field values and the IDs of the
+ * book's authors and tags, so consumers can apply it without fetching the book again. Author and
+ * tag details, such as names, are not included.
+ */
+@Entity
+@Table(name = "book_change")
+@Schema(description = "A single change to the book catalog")
+public class BookChange {
+
+    /**
+     * The kind of change that was made to a book.
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    @Id
+    @Schema(description = "Sequence number of the change, increasing with every change",
+            example = "42")
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @Schema(description = "Kind of change", example = "UPDATED")
+    private Type type;
+
+    @Schema(description = "ID of the book that was changed", example = "1")
+    private int bookId;
+
+    @Schema(description = "Title of the book after the change, null for deleted books",
+            example = "The Great Gatsby")
+    private String title;
+
+    @Schema(description = "Publication year after the change, null for deleted books",
+            example = "1925")
+    private Integer year;
+
+    @Schema(description = "Number of pages after the change, null for deleted books",
+            example = "180")
+    private Integer numberOfPages;
+
+    @Convert(converter = IdListConverter.class)
+    @Schema(description = "IDs of the book's authors after the change, empty for deleted books",
+            example = "[3, 17]")
+    private List<Integer> authorIds = List.of();
+
+    @Convert(converter = IdListConverter.class)
+    @Schema(description = "IDs of the book's tags after the change, empty for deleted books",
+            example = "[5]")
+    private List<Integer> tagIds = List.of();
+
+    @Column(nullable = false)
+    @Schema(description = "When the change was recorded")
+    private Instant changedAt;
+
+    /**
+     * Default constructor required by JPA
+     */
+    public BookChange() {}
+
+    /**
+     * Create a change entry for the given book. Deleted books only keep their ID.
+     *
+     * @param id The sequence number of the change
+     * @param type The kind of change
+     * @param book The book as it looks after the change
+     * @param authorIds The IDs of the book's authors after the change
+     * @param tagIds The IDs of the book's tags after the change
+     */
+    public BookChange(long id, Type type, Book book, List<Integer> authorIds,
+            List<Integer> tagIds) {
+        this.id = id;
+        this.type = type;
+        this.bookId = book.getId();
+        if (type != Type.DELETED) {
+            this.title = book.getTitle();
+            this.year = book.getYear();
+            this.numberOfPages = book.getNumberOfPages();
+            this.authorIds = List.copyOf(authorIds);
+            this.tagIds = List.copyOf(tagIds);
+        }
+        this.changedAt = Instant.now();
+    }
+
+    // Getters
+    public long getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public Integer getNumberOfPages() {
+        return numberOfPages;
+    }
+
+    public List<Integer> getAuthorIds() {
+        return authorIds;
+    }
+
+    public List<Integer> getTagIds() {
+        return tagIds;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "BookChange{" + "id=" + id + ", type=" + type + ", bookId=" + bookId + '}';
+    }
+}
@@ -0,0 +1,15 @@
+package no.ntnu.books.RestAPI.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * One page of the book change log.
+ *
+ * @param changes The changes on this page, ordered by sequence number
+ * @param nextSince The sequence number to pass as {@code since} to get the next page
+ * @param hasMore true if more changes are available after this page
+ */
+@Schema(description = "A page of changes from the book change log")
+public record BookChangePage(List<BookChange> changes, long nextSince, boolean hasMore) {
+}
@@ -0,0 +1,30 @@
+package no.ntnu.books.RestAPI.models;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Stores a list of IDs in a single column as comma separated values, for example "3,17,42".
+ */
+@Converter
+public class IdListConverter implements AttributeConverter<List<Integer>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return null;
+        }
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    @Override
+    public List<Integer> convertToEntityAttribute(String column) {
+        if (column == null || column.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(column.split(",")).map(Integer::valueOf).toList();
+    }
+}
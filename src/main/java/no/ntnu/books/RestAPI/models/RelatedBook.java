@@ -0,0 +1,13 @@
+package no.ntnu.books.RestAPI.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * A book related to another book, with how strongly it is related.
+ *
+ * @param book The related book
+ * @param score The weighted overlap of shared authors and tags, higher is more related
+ */
+@Schema(description = "A book related to another book through shared authors and tags")
+public record RelatedBook(Book book, float score) {
+}
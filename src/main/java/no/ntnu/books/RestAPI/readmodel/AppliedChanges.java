@@ -0,0 +1,56 @@
+package no.ntnu.books.RestAPI.readmodel;
+
+import java.util.BitSet;
+
+/**
+ * The changes applied to the read model: the sequence number up to which every change has been
+ * applied, plus a window of the changes applied above it.
+ *
+ * Sequence numbers are handed out in commit order without gaps, so the window only holds the
+ * changes whose commit callbacks arrived ahead of an earlier one. A change that never arrives is
+ * given up on once the window would grow past its capacity, which keeps it at capacity / 8 bytes.
+ */
+final class AppliedChanges {
+    private final int capacity;
+    private long floor;
+    // Bit i is set if change floor + 1 + i has been applied
+    private BitSet window = new BitSet();
+
+    AppliedChanges(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Forget the window and treat every change up to the given sequence number as applied.
+     */
+    void reset(long floor) {
+        this.floor = floor;
+        window = new BitSet();
+    }
+
+    boolean contains(long id) {
+        if (id <= floor) {
+            return true;
+        }
+        return id - floor <= capacity && window.get((int) (id - floor - 1));
+    }
+
+    void add(long id) {
+        if (contains(id)) {
+            return;
+        }
+        if (id - floor > capacity) {
+            advance(id - floor - capacity);
+        }
+        window.set((int) (id - floor - 1));
+        advance(window.nextClearBit(0));
+    }
+
+    private void advance(long by) {
+        if (by == 0) {
+            return;
+        }
+        floor += by;
+        window = by < window.length() ? window.get((int) by, window.length()) : new BitSet();
+    }
+}
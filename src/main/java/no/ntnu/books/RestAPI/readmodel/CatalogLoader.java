@@ -0,0 +1,55 @@
+package no.ntnu.books.RestAPI.readmodel;
+
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import no.ntnu.books.RestAPI.repositories.AuthorRepository;
+import no.ntnu.books.RestAPI.repositories.BookRepository;
+import no.ntnu.books.RestAPI.repositories.TagRepository;
+
+/**
+ * Loads the whole catalog into a {@link CatalogSnapshot} with streaming bulk reads. Rows are read
+ * as plain columns straight into the snapshot builder, so no entities are created and the result
+ * sets are never held in memory at once.
+ */
+@Component
+public class CatalogLoader {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    /**
+     * Load the catalog from the database.
+     *
+     * @return A snapshot of the catalog
+     */
+    @Transactional(readOnly = true)
+    public CatalogSnapshot load() {
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+        try (Stream<Object[]> rows = bookRepository.streamBookRows()) {
+            rows.forEach(row -> builder.addBook((Integer) row[0], (String) row[1],
+                    (Integer) row[2], (Integer) row[3]));
+        }
+        try (Stream<Object[]> rows = authorRepository.streamAuthorRows()) {
+            rows.forEach(row -> builder.addAuthor((Integer) row[0], (String) row[1],
+                    (String) row[2], (Integer) row[3]));
+        }
+        try (Stream<Object[]> rows = tagRepository.streamTagRows()) {
+            rows.forEach(row -> builder.addTag((Integer) row[0], (String) row[1]));
+        }
+        try (Stream<Object[]> rows = bookRepository.streamAuthorLinks()) {
+            rows.forEach(row -> builder.addAuthorLink((Integer) row[0], (Integer) row[1]));
+        }
+        try (Stream<Object[]> rows = bookRepository.streamTagLinks()) {
+            rows.forEach(row -> builder.addTagLink((Integer) row[0], (Integer) row[1]));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,163 @@
+package no.ntnu.books.RestAPI.readmodel;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import no.ntnu.books.RestAPI.models.Book;
+import no.ntnu.books.RestAPI.models.BookChange;
+import no.ntnu.books.RestAPI.repositories.BookChangeRepository;
+import no.ntnu.books.RestAPI.repositories.BookRepository;
+
+/**
+ * Opt-in in-memory read model of the catalog, enabled with books.read-model.enabled=true.
+ *
+ * When enabled, the whole catalog is loaded into a {@link CatalogSnapshot} at startup, before the
+ * application accepts requests, and book reads are served from it instead of the database. Every
+ * committed change to a book produces a new snapshot which is swapped in atomically, so readers
+ * never wait for writers.
+ *
+ * Only changes made through the book API are picked up; authors and tags changed directly in the
+ * database show up after a restart.
+ */
+@Service
+public class CatalogReadModel implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogReadModel.class);
+
+    /** How far past a change that has not arrived yet later changes are still tracked. */
+    private static final int APPLIED_CHANGES_WINDOW = 4096;
+
+    @Value("${books.read-model.enabled:false}")
+    private boolean enabled;
+
+    @Autowired
+    private CatalogLoader catalogLoader;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookChangeRepository changeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    // Guarded by this
+    private final AppliedChanges appliedChanges = new AppliedChanges(APPLIED_CHANGES_WINDOW);
+
+    private TransactionTemplate newTransaction;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newTransaction.setReadOnly(true);
+        load();
+        Gauge.builder("books.readmodel.books", this, model -> model.getSnapshot().size())
+                .description("Books in the in-memory read model").register(meterRegistry);
+        Gauge.builder("books.readmodel.bytes", this,
+                model -> model.getSnapshot().estimatedBytes())
+                .description("Estimated heap used by the in-memory read model")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load the catalog from the database and swap it in.
+     */
+    public synchronized void load() {
+        long start = System.nanoTime();
+        // Every change up to here has committed, so the catalog loaded next already includes it
+        long sequence = changeRepository.currentSequence();
+        CatalogSnapshot loaded = catalogLoader.load();
+        snapshot.set(loaded);
+        appliedChanges.reset(sequence);
+        long bytes = loaded.estimatedBytes();
+        logger.info("Loaded {} books into the read model in {} ms, ~{} KiB ({} KiB per 100k books)",
+                loaded.size(), (System.nanoTime() - start) / 1_000_000, bytes / 1024,
+                loaded.size() == 0 ? 0 : bytes * 100_000 / loaded.size() / 1024);
+    }
+
+    /**
+     * Check whether reads are served from memory.
+     *
+     * @return true if the read model is enabled and loaded
+     */
+    public boolean isServing() {
+        return snapshot.get() != null;
+    }
+
+    /**
+     * Get the current snapshot.
+     *
+     * @return The current snapshot, empty if the read model is not loaded
+     */
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot.get();
+        return current != null ? current : CatalogSnapshot.EMPTY;
+    }
+
+    public List<Book> getAllBooks() {
+        return getSnapshot().getAllBooks();
+    }
+
+    public Optional<Book> findBook(int id) {
+        CatalogSnapshot current = getSnapshot();
+        int index = current.indexOf(id);
+        return index >= 0 ? Optional.of(current.toBook(index)) : Optional.empty();
+    }
+
+    /**
+     * Apply a committed change to a book by swapping in a new snapshot. Changes are applied one at
+     * a time; readers keep using the previous snapshot until the new one is ready.
+     *
+     * The book is read again in a new transaction. The session of the request that made the change
+     * may still be open, and the book it holds is the one that was sent in, which lacks the
+     * authors. Commit callbacks of concurrent writes can also arrive out of order or twice, so
+     * changes that were already applied, or were part of the loaded catalog, are skipped.
+     *
+     * @param change The committed change
+     */
+    @TransactionalEventListener
+    public synchronized void onChange(BookChange change) {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            return;
+        }
+        if (appliedChanges.contains(change.getId())) {
+            return;
+        }
+        try {
+            if (change.getType() == BookChange.Type.DELETED) {
+                snapshot.set(current.withoutBook(change.getBookId()));
+            } else {
+                Optional<Book> book = newTransaction.execute(
+                        status -> bookRepository.findWithRelationsById(change.getBookId()));
+                snapshot.set(book.map(current::withBook)
+                        .orElseGet(() -> current.withoutBook(change.getBookId())));
+            }
+            appliedChanges.add(change.getId());
+        } catch (RuntimeException e) {
+            logger.error("Could not apply change {} to the read model", change.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package no.ntnu.books.RestAPI.readmodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import no.ntnu.books.RestAPI.models.Author;
+import no.ntnu.books.RestAPI.models.Book;
+import no.ntnu.books.RestAPI.models.Tag;
+
+/**
+ * An immutable, column oriented copy of the book catalog.
+ *
+ * Books are stored in primitive arrays sorted by ID, one array per field, with the titles
+ * interned. The authors and tags of the book in row i are the author and tag IDs from
+ * {@code authorOffsets[i]} up to {@code authorOffsets[i + 1]} (and likewise for tags), which are
+ * looked up in the author and tag tables, also sorted by ID.
+ *
+ * Snapshots are never changed. A write produces a new snapshot that shares nothing mutable with
+ * the old one, so readers can use whichever snapshot they got without locking. Finding a book by
+ * ID is a binary search over the ID column and allocates nothing.
+ */
+public final class CatalogSnapshot {
+
+    /** A snapshot without any books, authors or tags. */
+    public static final CatalogSnapshot EMPTY = new Builder().build();
+
+    private static final int[] NO_INTS = new int[0];
+
+    // Books
+    private final int[] ids;
+    private final String[] titles;
+    private final int[] years;
+    private final int[] pages;
+    private final int[] authorOffsets;
+    private final int[] authorRefs;
+    private final int[] tagOffsets;
+    private final int[] tagRefs;
+
+    // Authors
+    private final int[] authorIds;
+    private final String[] authorFirstnames;
+    private final String[] authorLastNames;
+    private final int[] authorBirthYears;
+
+    // Tags
+    private final int[] tagIds;
+    private final String[] tagNames;
+
+    // Materialized lazily on the first listing, at most once per snapshot
+    private volatile List<Book> allBooks;
+
+    private CatalogSnapshot(int[] ids, String[] titles, int[] years, int[] pages,
+            int[] authorOffsets, int[] authorRefs, int[] tagOffsets, int[] tagRefs,
+            int[] authorIds, String[] authorFirstnames, String[] authorLastNames,
+            int[] authorBirthYears, int[] tagIds, String[] tagNames) {
+        this.ids = ids;
+        this.titles = titles;
+        this.years = years;
+        this.pages = pages;
+        this.authorOffsets = authorOffsets;
+        this.authorRefs = authorRefs;
+        this.tagOffsets = tagOffsets;
+        this.tagRefs = tagRefs;
+        this.authorIds = authorIds;
+        this.authorFirstnames = authorFirstnames;
+        this.authorLastNames = authorLastNames;
+        this.authorBirthYears = authorBirthYears;
+        this.tagIds = tagIds;
+        this.tagNames = tagNames;
+    }
+
+    /**
+     * Get the number of books in the snapshot.
+     *
+     * @return The number of books
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Get the number of authors in the snapshot, including authors without books.
+     *
+     * @return The number of authors
+     */
+    public int authorCount() {
+        return authorIds.length;
+    }
+
+    /**
+     * Find the row of the book with the given ID.
+     *
+     * @param bookId The ID of the book
+     * @return The row of the book, or a negative number if the book is not in the snapshot
+     */
+    public int indexOf(int bookId) {
+        return Arrays.binarySearch(ids, bookId);
+    }
+
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    public String getTitle(int index) {
+        return titles[index];
+    }
+
+    public int getYear(int index) {
+        return years[index];
+    }
+
+    public int getNumberOfPages(int index) {
+        return pages[index];
+    }
+
+    /**
+     * Get the number of authors of the book in the given row.
+     *
+     * @param index The row of the book
+     * @return The number of authors
+     */
+    public int authorRefCount(int index) {
+        return authorOffsets[index + 1] - authorOffsets[index];
+    }
+
+    /**
+     * Get the ID of one of the authors of the book in the given row.
+     *
+     * @param index The row of the book
+     * @param n Which author, from 0 up to {@link #authorRefCount(int)}
+     * @return The ID of the author
+     */
+    public int authorRef(int index, int n) {
+        return authorRefs[authorOffsets[index] + n];
+    }
+
+    /**
+     * Get the number of tags of the book in the given row.
+     *
+     * @param index The row of the book
+     * @return The number of tags
+     */
+    public int tagRefCount(int index) {
+        return tagOffsets[index + 1] - tagOffsets[index];
+    }
+
+    /**
+     * Get the ID of one of the tags of the book in the given row.
+     *
+     * @param index The row of the book
+     * @param n Which tag, from 0 up to {@link #tagRefCount(int)}
+     * @return The ID of the tag
+     */
+    public int tagRef(int index, int n) {
+        return tagRefs[tagOffsets[index] + n];
+    }
+
+    /**
+     * Create a book object for the book in the given row. The book gets its own author and tag
+     * objects, so it can be handed out without sharing anything with other readers.
+     *
+     * @param index The row of the book
+     * @return The book
+     */
+    public Book toBook(int index) {
+        Book book = new Book(ids[index], titles[index], years[index], pages[index]);
+        for (int r = authorOffsets[index]; r < authorOffsets[index + 1]; r++) {
+            int a = Arrays.binarySearch(authorIds, authorRefs[r]);
+            if (a >= 0) {
+                book.addAuthor(new Author(authorIds[a], authorFirstnames[a], authorLastNames[a],
+                        authorBirthYears[a]));
+            }
+        }
+        for (int r = tagOffsets[index]; r < tagOffsets[index + 1]; r++) {
+            int t = Arrays.binarySearch(tagIds, tagRefs[r]);
+            if (t >= 0) {
+                book.addTag(new Tag(tagIds[t], tagNames[t]));
+            }
+        }
+        return book;
+    }
+
+    /**
+     * Get all books, ordered by ID. The list is created on the first call and shared by all
+     * later callers of this snapshot, so the books in it must not be changed.
+     *
+     * @return All books in the snapshot
+     */
+    public List<Book> getAllBooks() {
+        List<Book> books = allBooks;
+        if (books == null) {
+            List<Book> created = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                created.add(toBook(i));
+            }
+            books = Collections.unmodifiableList(created);
+            allBooks = books;
+        }
+        return books;
+    }
+
+    /**
+     * Create a copy of this snapshot with the given book added, or replaced if a book with the
+     * same ID is already in the snapshot. Authors and tags of the book are added to or updated in
+     * the author and tag tables.
+     *
+     * @param book The book to add, with its authors and tags loaded
+     * @return The new snapshot
+     */
+    public CatalogSnapshot withBook(Book book) {
+        int found = indexOf(book.getId());
+        int row = found >= 0 ? found : -found - 1;
+
+        int[] newAuthorRefs = book.getAuthors().stream().mapToInt(Author::getId).sorted().toArray();
+        int[] newTagRefs = book.getTags().stream().mapToInt(Tag::getId).sorted().toArray();
+
+        CatalogSnapshot withTables = this;
+        for (Author author : book.getAuthors()) {
+            withTables = withTables.withAuthor(author);
+        }
+        for (Tag tag : book.getTags()) {
+            withTables = withTables.withTag(tag);
+        }
+        return withTables.replaceRow(row, found >= 0 ? 1 : 0, book, newAuthorRefs, newTagRefs);
+    }
+
+    /**
+     * Create a copy of this snapshot without the book with the given ID.
+     *
+     * @param bookId The ID of the book to remove
+     * @return The new snapshot, or this snapshot if it has no book with that ID
+     */
+    public CatalogSnapshot withoutBook(int bookId) {
+        int row = indexOf(bookId);
+        if (row < 0) {
+            return this;
+        }
+        return replaceRow(row, 1, null, NO_INTS, NO_INTS);
+    }
+
+    private CatalogSnapshot replaceRow(int row, int removeCount, Book book, int[] newAuthorRefs,
+            int[] newTagRefs) {
+        boolean insert = book != null;
+        int[] newIds = splice(ids, row, removeCount, insert ? new int[] {book.getId()} : NO_INTS);
+        String[] newTitles = splice(titles, row, removeCount,
+                insert ? new String[] {intern(book.getTitle())} : new String[0]);
+        int[] newYears = splice(years, row, removeCount,
+                insert ? new int[] {book.getYear()} : NO_INTS);
+        int[] newPages = splice(pages, row, removeCount,
+                insert ? new int[] {book.getNumberOfPages()} : NO_INTS);
+
+        int addedRows = insert ? 1 : 0;
+        int oldAuthorRefs = authorOffsets[row + removeCount] - authorOffsets[row];
+        int oldTagRefs = tagOffsets[row + removeCount] - tagOffsets[row];
+        return new CatalogSnapshot(newIds, newTitles, newYears, newPages,
+                spliceOffsets(authorOffsets, row, removeCount, addedRows, newAuthorRefs.length),
+                splice(authorRefs, authorOffsets[row], oldAuthorRefs, newAuthorRefs),
+                spliceOffsets(tagOffsets, row, removeCount, addedRows, newTagRefs.length),
+                splice(tagRefs, tagOffsets[row], oldTagRefs, newTagRefs),
+                authorIds, authorFirstnames, authorLastNames, authorBirthYears, tagIds, tagNames);
+    }
+
+    private CatalogSnapshot withAuthor(Author author) {
+        int found = Arrays.binarySearch(authorIds, author.getId());
+        if (found >= 0 && author.getBirthYear() == authorBirthYears[found]
+                && Objects.equals(author.getFirstname(), authorFirstnames[found])
+                && Objects.equals(author.getLastName(), authorLastNames[found])) {
+            return this;
+        }
+        int row = found >= 0 ? found : -found - 1;
+        int removeCount = found >= 0 ? 1 : 0;
+        return new CatalogSnapshot(ids, titles, years, pages, authorOffsets, authorRefs,
+                tagOffsets, tagRefs,
+                splice(authorIds, row, removeCount, new int[] {author.getId()}),
+                splice(authorFirstnames, row, removeCount, new String[] {author.getFirstname()}),
+                splice(authorLastNames, row, removeCount, new String[] {author.getLastName()}),
+                splice(authorBirthYears, row, removeCount, new int[] {author.getBirthYear()}),
+                tagIds, tagNames);
+    }
+
+    private CatalogSnapshot withTag(Tag tag) {
+        int found = Arrays.binarySearch(tagIds, tag.getId());
+        if (found >= 0 && Objects.equals(tag.getName(), tagNames[found])) {
+            return this;
+        }
+        int row = found >= 0 ? found : -found - 1;
+        int removeCount = found >= 0 ? 1 : 0;
+        return new CatalogSnapshot(ids, titles, years, pages, authorOffsets, authorRefs,
+                tagOffsets, tagRefs, authorIds, authorFirstnames, authorLastNames,
+                authorBirthYears, splice(tagIds, row, removeCount, new int[] {tag.getId()}),
+                splice(tagNames, row, removeCount, new String[] {tag.getName()}));
+    }
+
+    /**
+     * Estimate how many bytes the snapshot takes on the heap, counting the arrays and every
+     * distinct string once. Assumes compressed object pointers and compact strings.
+     *
+     * @return The estimated size in bytes
+     */
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (int[] column : new int[][] {ids, years, pages, authorOffsets, authorRefs, tagOffsets,
+                tagRefs, authorIds, authorBirthYears, tagIds}) {
+            bytes += 16 + 4L * column.length;
+        }
+        Set<String> strings = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String[] column : new String[][] {titles, authorFirstnames, authorLastNames,
+                tagNames}) {
+            bytes += 16 + 4L * column.length;
+            for (String value : column) {
+                if (value != null && strings.add(value)) {
+                    // String object plus its byte array
+                    bytes += 24 + 16 + value.length();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
+
+    private static int[] splice(int[] source, int at, int removeCount, int[] insert) {
+        int[] result = new int[source.length - removeCount + insert.length];
+        System.arraycopy(source, 0, result, 0, at);
+        System.arraycopy(insert, 0, result, at, insert.length);
+        System.arraycopy(source, at + removeCount, result, at + insert.length,
+                source.length - at - removeCount);
+        return result;
+    }
+
+    private static String[] splice(String[] source, int at, int removeCount, String[] insert) {
+        String[] result = new String[source.length - removeCount + insert.length];
+        System.arraycopy(source, 0, result, 0, at);
+        System.arraycopy(insert, 0, result, at, insert.length);
+        System.arraycopy(source, at + removeCount, result, at + insert.length,
+                source.length - at - removeCount);
+        return result;
+    }
+
+    /**
+     * Replace the offsets of {@code removeCount} rows starting at {@code row} with the offsets of
+     * {@code addedRows} rows (0 or 1) that together have {@code refCount} references.
+     */
+    private static int[] spliceOffsets(int[] offsets, int row, int removeCount, int addedRows,
+            int refCount) {
+        int oldRefCount = offsets[row + removeCount] - offsets[row];
+        int delta = refCount - oldRefCount;
+        int[] result = new int[offsets.length - removeCount + addedRows];
+        System.arraycopy(offsets, 0, result, 0, row + 1);
+        for (int i = row + 1; i < result.length; i++) {
+            result[i] = offsets[i - addedRows + removeCount] + delta;
+        }
+        return result;
+    }
+
+    /**
+     * Collects the rows of a snapshot, typically streamed from the database. Books, authors and
+     * tags can be added in any order; links to books or authors that are not added are dropped.
+     */
+    public static final class Builder {
+        private final IntColumn bookIds = new IntColumn();
+        private final List<String> bookTitles = new ArrayList<>();
+        private final IntColumn bookYears = new IntColumn();
+        private final IntColumn bookPages = new IntColumn();
+
+        private final IntColumn authorLinkBooks = new IntColumn();
+        private final IntColumn authorLinkRefs = new IntColumn();
+        private final IntColumn tagLinkBooks = new IntColumn();
+        private final IntColumn tagLinkRefs = new IntColumn();
+
+        private final IntColumn authorIds = new IntColumn();
+        private final List<String> authorFirstnames = new ArrayList<>();
+        private final List<String> authorLastNames = new ArrayList<>();
+        private final IntColumn authorBirthYears = new IntColumn();
+
+        private final IntColumn tagIds = new IntColumn();
+        private final List<String> tagNames = new ArrayList<>();
+
+        public Builder addBook(int id, String title, int year, int numberOfPages) {
+            bookIds.add(id);
+            bookTitles.add(intern(title));
+            bookYears.add(year);
+            bookPages.add(numberOfPages);
+            return this;
+        }
+
+        public Builder addAuthorLink(int bookId, int authorId) {
+            authorLinkBooks.add(bookId);
+            authorLinkRefs.add(authorId);
+            return this;
+        }
+
+        public Builder addTagLink(int bookId, int tagId) {
+            tagLinkBooks.add(bookId);
+            tagLinkRefs.add(tagId);
+            return this;
+        }
+
+        public Builder addAuthor(int id, String firstname, String lastName, int birthYear) {
+            authorIds.add(id);
+            authorFirstnames.add(firstname);
+            authorLastNames.add(lastName);
+            authorBirthYears.add(birthYear);
+            return this;
+        }
+
+        public Builder addTag(int id, String name) {
+            tagIds.add(id);
+            tagNames.add(name);
+            return this;
+        }
+
+        /**
+         * Build the snapshot from the rows added so far.
+         *
+         * @return The snapshot
+         */
+        public CatalogSnapshot build() {
+            int[] bookOrder = sortedOrder(bookIds);
+            int[] ids = permute(bookIds, bookOrder);
+            String[] titles = permute(bookTitles, bookOrder);
+            int[] years = permute(bookYears, bookOrder);
+            int[] pages = permute(bookPages, bookOrder);
+
+            int[] authorOrder = sortedOrder(authorIds);
+            int[] tagOrder = sortedOrder(tagIds);
+
+            int[] authorOffsets = new int[ids.length + 1];
+            int[] authorRefs = adjacency(ids, authorLinkBooks, authorLinkRefs, authorOffsets);
+            int[] tagOffsets = new int[ids.length + 1];
+            int[] tagRefs = adjacency(ids, tagLinkBooks, tagLinkRefs, tagOffsets);
+
+            return new CatalogSnapshot(ids, titles, years, pages, authorOffsets, authorRefs,
+                    tagOffsets, tagRefs, permute(authorIds, authorOrder),
+                    permute(authorFirstnames, authorOrder), permute(authorLastNames, authorOrder),
+                    permute(authorBirthYears, authorOrder), permute(tagIds, tagOrder),
+                    permute(tagNames, tagOrder));
+        }
+
+        /**
+         * Find the order that sorts the given IDs, packing each ID with its position into a long
+         * so the sort stays on primitives.
+         */
+        private static int[] sortedOrder(IntColumn ids) {
+            long[] keyed = new long[ids.size()];
+            for (int i = 0; i < keyed.length; i++) {
+                keyed[i] = ((long) ids.get(i) << 32) | i;
+            }
+            Arrays.sort(keyed);
+            int[] order = new int[keyed.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = (int) keyed[i];
+            }
+            return order;
+        }
+
+        private static int[] permute(IntColumn column, int[] order) {
+            int[] result = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                result[i] = column.get(order[i]);
+            }
+            return result;
+        }
+
+        private static String[] permute(List<String> column, int[] order) {
+            String[] result = new String[order.length];
+            for (int i = 0; i < order.length; i++) {
+                result[i] = column.get(order[i]);
+            }
+            return result;
+        }
+
+        /**
+         * Turn links into offsets and references per book row, with the references of each row
+         * sorted.
+         */
+        private static int[] adjacency(int[] ids, IntColumn linkBooks, IntColumn linkRefs,
+                int[] offsets) {
+            int[] rows = new int[linkBooks.size()];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = Arrays.binarySearch(ids, linkBooks.get(i));
+                if (rows[i] >= 0) {
+                    offsets[rows[i] + 1]++;
+                }
+            }
+            for (int i = 1; i < offsets.length; i++) {
+                offsets[i] += offsets[i - 1];
+            }
+            int[] refs = new int[offsets[offsets.length - 1]];
+            int[] cursor = Arrays.copyOf(offsets, offsets.length - 1);
+            for (int i = 0; i < rows.length; i++) {
+                if (rows[i] >= 0) {
+                    refs[cursor[rows[i]]++] = linkRefs.get(i);
+                }
+            }
+            for (int row = 0; row < ids.length; row++) {
+                Arrays.sort(refs, offsets[row], offsets[row + 1]);
+            }
+            return refs;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package no.ntnu.books.RestAPI.readmodel;
+
+import java.util.Arrays;
+
+/**
+ * A growable column of primitive ints, used while a snapshot is being built.
+ */
+final class IntColumn {
+    private int[] values = new int[1024];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,476 @@
+package no.ntnu.books.RestAPI.related;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import no.ntnu.books.RestAPI.readmodel.CatalogSnapshot;
+
+/**
+ * Precomputed related books, ranked by the weighted overlap of their authors and tags.
+ *
+ * Every author and tag of a book is a feature. Two books score the sum of the weights of the
+ * features they share. A feature weighs more the fewer books have it (inverse document
+ * frequency), and authors weigh more than tags. Features shared by more than maxPostings books,
+ * like a "fiction" tag, say little about how related two books are and are left out, which keeps
+ * both the build and updates from growing quadratically.
+ *
+ * The index keeps the best k neighbors of every book. It is built in parallel on a fork-join pool
+ * and then kept up to date one changed book at a time. Lookups read an immutable neighbor list and
+ * never wait for updates.
+ */
+public class RelatedBooksIndex {
+
+    /**
+     * Tuning of the index.
+     *
+     * @param neighbors How many related books are kept per book
+     * @param authorWeight Weight of a shared author, before the frequency adjustment
+     * @param tagWeight Weight of a shared tag, before the frequency adjustment
+     * @param maxPostings Features shared by more books than this are ignored
+     */
+    public record Settings(int neighbors, float authorWeight, float tagWeight, int maxPostings) {
+    }
+
+    /**
+     * The related books of one book, best first.
+     *
+     * @param ids The IDs of the related books
+     * @param scores The scores of the related books
+     */
+    public record Neighbors(int[] ids, float[] scores) {
+        static final Neighbors NONE = new Neighbors(new int[0], new float[0]);
+
+        public int size() {
+            return ids.length;
+        }
+
+        int indexOf(int id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Create a copy with the given book set to the given score, keeping at most k books.
+         */
+        Neighbors with(int id, float score, int k) {
+            TopK topK = new TopK(k);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != id) {
+                    topK.offer(ids[i], scores[i]);
+                }
+            }
+            topK.offer(id, score);
+            return topK.drain();
+        }
+    }
+
+    private static final int[] NO_FEATURES = new int[0];
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+
+    private final Settings settings;
+
+    // Only touched by the writer, under the lock of this index
+    private final Map<Integer, int[]> featuresByBook;
+    private final Map<Integer, int[]> booksByFeature;
+
+    private final ConcurrentHashMap<Integer, Neighbors> neighbors;
+
+    private RelatedBooksIndex(Settings settings, Map<Integer, int[]> featuresByBook,
+            Map<Integer, int[]> booksByFeature, ConcurrentHashMap<Integer, Neighbors> neighbors) {
+        this.settings = settings;
+        this.featuresByBook = featuresByBook;
+        this.booksByFeature = booksByFeature;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Get the feature of an author.
+     *
+     * @param authorId The ID of the author
+     * @return The feature key
+     */
+    public static int authorFeature(int authorId) {
+        return authorId << 1;
+    }
+
+    /**
+     * Get the feature of a tag.
+     *
+     * @param tagId The ID of the tag
+     * @return The feature key
+     */
+    public static int tagFeature(int tagId) {
+        return (tagId << 1) | 1;
+    }
+
+    /**
+     * Get the related books of a book.
+     *
+     * @param bookId The ID of the book
+     * @return The related books, best first, empty if the book is not indexed
+     */
+    public Neighbors related(int bookId) {
+        return neighbors.getOrDefault(bookId, Neighbors.NONE);
+    }
+
+    /**
+     * Get the number of indexed books.
+     *
+     * @return The number of books
+     */
+    public int size() {
+        return neighbors.size();
+    }
+
+    /**
+     * Build the index for all books in a snapshot.
+     *
+     * @param snapshot The catalog to index
+     * @param settings The tuning of the index
+     * @param pool The pool the neighbor lists are computed on
+     * @return The index
+     */
+    public static RelatedBooksIndex build(CatalogSnapshot snapshot, Settings settings,
+            ForkJoinPool pool) {
+        int n = snapshot.size();
+
+        // Give every feature a dense number and count the books that have it
+        Map<Integer, Integer> featureNumbers = new HashMap<>();
+        int[] featureKeys = new int[1024];
+        int[] frequencies = new int[1024];
+        int featureCount = 0;
+        int[][] rowFeatureKeys = new int[n][];
+        int[][] rowFeatures = new int[n][];
+        for (int row = 0; row < n; row++) {
+            int[] keys = features(snapshot, row);
+            int[] numbers = new int[keys.length];
+            for (int j = 0; j < keys.length; j++) {
+                Integer number = featureNumbers.get(keys[j]);
+                if (number == null) {
+                    if (featureCount == featureKeys.length) {
+                        featureKeys = Arrays.copyOf(featureKeys, featureCount * 2);
+                        frequencies = Arrays.copyOf(frequencies, featureCount * 2);
+                    }
+                    number = featureCount++;
+                    featureNumbers.put(keys[j], number);
+                    featureKeys[number] = keys[j];
+                }
+                frequencies[number]++;
+                numbers[j] = number;
+            }
+            rowFeatureKeys[row] = keys;
+            rowFeatures[row] = numbers;
+        }
+
+        // Posting lists: the rows having each feature, in ascending order
+        int[] postingOffsets = new int[featureCount + 1];
+        for (int f = 0; f < featureCount; f++) {
+            postingOffsets[f + 1] = postingOffsets[f] + frequencies[f];
+        }
+        int[] postings = new int[postingOffsets[featureCount]];
+        int[] cursor = Arrays.copyOf(postingOffsets, featureCount);
+        for (int row = 0; row < n; row++) {
+            for (int f : rowFeatures[row]) {
+                postings[cursor[f]++] = row;
+            }
+        }
+
+        float[] weights = new float[featureCount];
+        for (int f = 0; f < featureCount; f++) {
+            weights[f] = weight(settings, featureKeys[f], frequencies[f], n);
+        }
+
+        Neighbors[] result = new Neighbors[n];
+        pool.invoke(new BuildTask(new BuildContext(snapshot, settings.neighbors(), rowFeatures,
+                postingOffsets, postings, weights, result), 0, n));
+
+        Map<Integer, int[]> featuresByBook = new HashMap<>(n * 4 / 3 + 1);
+        ConcurrentHashMap<Integer, Neighbors> neighbors = new ConcurrentHashMap<>(n * 4 / 3 + 1);
+        for (int row = 0; row < n; row++) {
+            featuresByBook.put(snapshot.getId(row), rowFeatureKeys[row]);
+            neighbors.put(snapshot.getId(row), result[row]);
+        }
+        Map<Integer, int[]> booksByFeature = new HashMap<>(featureCount * 4 / 3 + 1);
+        for (int f = 0; f < featureCount; f++) {
+            int[] ids = new int[frequencies[f]];
+            for (int p = postingOffsets[f]; p < postingOffsets[f + 1]; p++) {
+                ids[p - postingOffsets[f]] = snapshot.getId(postings[p]);
+            }
+            booksByFeature.put(featureKeys[f], ids);
+        }
+        return new RelatedBooksIndex(settings, featuresByBook, booksByFeature, neighbors);
+    }
+
+    /**
+     * Update the index after the authors or tags of a book changed, or the book was added or
+     * removed. The neighbor lists of the book and of every book sharing a feature with it before
+     * or after the change are brought up to date.
+     *
+     * @param bookId The ID of the book
+     * @param features The features of the book, see {@link #authorFeature(int)} and
+     *        {@link #tagFeature(int)}, or null if the book was removed
+     */
+    public synchronized void update(int bookId, int[] features) {
+        int[] oldFeatures = featuresByBook.getOrDefault(bookId, NO_FEATURES);
+        int[] newFeatures = NO_FEATURES;
+        if (features != null) {
+            newFeatures = Arrays.stream(features).sorted().distinct().toArray();
+            featuresByBook.put(bookId, newFeatures);
+        } else {
+            featuresByBook.remove(bookId);
+        }
+
+        for (int key : oldFeatures) {
+            if (Arrays.binarySearch(newFeatures, key) < 0) {
+                removePosting(key, bookId);
+            }
+        }
+        for (int key : newFeatures) {
+            if (Arrays.binarySearch(oldFeatures, key) < 0) {
+                addPosting(key, bookId);
+            }
+        }
+
+        Set<Integer> affected = new HashSet<>();
+        collectSharing(oldFeatures, affected);
+        collectSharing(newFeatures, affected);
+        affected.remove(bookId);
+
+        if (features != null) {
+            neighbors.put(bookId, score(bookId));
+        } else {
+            neighbors.remove(bookId);
+        }
+
+        for (int other : affected) {
+            Neighbors current = neighbors.getOrDefault(other, Neighbors.NONE);
+            float score = pairScore(other, bookId);
+            int position = current.indexOf(bookId);
+            if (position >= 0 && score < current.scores()[position]) {
+                // Another book may now deserve the place, only a full scoring can tell
+                neighbors.put(other, score(other));
+            } else if (score > 0) {
+                neighbors.put(other, current.with(bookId, score, settings.neighbors()));
+            }
+        }
+    }
+
+    private void collectSharing(int[] features, Set<Integer> target) {
+        for (int key : features) {
+            int[] books = booksByFeature.get(key);
+            if (books != null && books.length <= settings.maxPostings()) {
+                for (int book : books) {
+                    target.add(book);
+                }
+            }
+        }
+    }
+
+    private void addPosting(int key, int bookId) {
+        int[] books = booksByFeature.getOrDefault(key, NO_FEATURES);
+        int at = Arrays.binarySearch(books, bookId);
+        if (at >= 0) {
+            return;
+        }
+        at = -at - 1;
+        int[] updated = new int[books.length + 1];
+        System.arraycopy(books, 0, updated, 0, at);
+        updated[at] = bookId;
+        System.arraycopy(books, at, updated, at + 1, books.length - at);
+        booksByFeature.put(key, updated);
+    }
+
+    private void removePosting(int key, int bookId) {
+        int[] books = booksByFeature.get(key);
+        int at = books == null ? -1 : Arrays.binarySearch(books, bookId);
+        if (at < 0) {
+            return;
+        }
+        if (books.length == 1) {
+            booksByFeature.remove(key);
+            return;
+        }
+        int[] updated = new int[books.length - 1];
+        System.arraycopy(books, 0, updated, 0, at);
+        System.arraycopy(books, at + 1, updated, at, books.length - at - 1);
+        booksByFeature.put(key, updated);
+    }
+
+    private float currentWeight(int key) {
+        int[] books = booksByFeature.get(key);
+        return books == null ? 0 : weight(settings, key, books.length, featuresByBook.size());
+    }
+
+    private Neighbors score(int bookId) {
+        Map<Integer, Float> scores = new HashMap<>();
+        for (int key : featuresByBook.getOrDefault(bookId, NO_FEATURES)) {
+            float weight = currentWeight(key);
+            if (weight == 0) {
+                continue;
+            }
+            for (int other : booksByFeature.get(key)) {
+                if (other != bookId) {
+                    scores.merge(other, weight, Float::sum);
+                }
+            }
+        }
+        TopK topK = new TopK(settings.neighbors());
+        scores.forEach(topK::offer);
+        return topK.drain();
+    }
+
+    private float pairScore(int bookId, int otherId) {
+        int[] a = featuresByBook.getOrDefault(bookId, NO_FEATURES);
+        int[] b = featuresByBook.getOrDefault(otherId, NO_FEATURES);
+        float score = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                score += currentWeight(a[i]);
+                i++;
+                j++;
+            }
+        }
+        return score;
+    }
+
+    private static float weight(Settings settings, int key, int frequency, int bookCount) {
+        if (frequency < 2 || frequency > settings.maxPostings()) {
+            return 0;
+        }
+        float base = (key & 1) == 0 ? settings.authorWeight() : settings.tagWeight();
+        return base * (float) Math.log(1.0 + (double) bookCount / frequency);
+    }
+
+    private static int[] features(CatalogSnapshot snapshot, int row) {
+        int authors = snapshot.authorRefCount(row);
+        int tags = snapshot.tagRefCount(row);
+        int[] keys = new int[authors + tags];
+        for (int n = 0; n < authors; n++) {
+            keys[n] = authorFeature(snapshot.authorRef(row, n));
+        }
+        for (int n = 0; n < tags; n++) {
+            keys[authors + n] = tagFeature(snapshot.tagRef(row, n));
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Everything the build tasks share. Score arrays sized to the catalog are pooled, so tasks
+     * reuse them instead of allocating them for every book. A leaf task holds one set for as long
+     * as it runs, so there are never more sets than threads, and they go away with the context
+     * once the build is done.
+     */
+    private static final class BuildContext {
+        final CatalogSnapshot snapshot;
+        final int k;
+        final int[][] rowFeatures;
+        final int[] postingOffsets;
+        final int[] postings;
+        final float[] weights;
+        final Neighbors[] result;
+        final ConcurrentLinkedQueue<Scratch> scratch = new ConcurrentLinkedQueue<>();
+
+        BuildContext(CatalogSnapshot snapshot, int k, int[][] rowFeatures, int[] postingOffsets,
+                int[] postings, float[] weights, Neighbors[] result) {
+            this.snapshot = snapshot;
+            this.k = k;
+            this.rowFeatures = rowFeatures;
+            this.postingOffsets = postingOffsets;
+            this.postings = postings;
+            this.weights = weights;
+            this.result = result;
+        }
+
+        Scratch takeScratch() {
+            Scratch free = scratch.poll();
+            return free != null ? free : new Scratch(snapshot.size());
+        }
+
+        void returnScratch(Scratch free) {
+            scratch.offer(free);
+        }
+
+        void scoreRow(int row, Scratch scratch) {
+            // All scores are zero between rows, only the touched ones are reset
+            float[] scores = scratch.scores;
+            int[] touched = scratch.touched;
+            int touchedCount = 0;
+            for (int f : rowFeatures[row]) {
+                float weight = weights[f];
+                if (weight == 0) {
+                    continue;
+                }
+                for (int p = postingOffsets[f]; p < postingOffsets[f + 1]; p++) {
+                    int other = postings[p];
+                    if (other == row) {
+                        continue;
+                    }
+                    if (scores[other] == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                    scores[other] += weight;
+                }
+            }
+            TopK topK = new TopK(k);
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                topK.offer(snapshot.getId(other), scores[other]);
+                scores[other] = 0;
+            }
+            result[row] = topK.drain();
+        }
+    }
+
+    private static final class Scratch {
+        final float[] scores;
+        final int[] touched;
+
+        Scratch(int size) {
+            this.scores = new float[size];
+            this.touched = new int[size];
+        }
+    }
+
+    private static final class BuildTask extends RecursiveAction {
+        private final BuildContext context;
+        private final int from;
+        private final int to;
+
+        BuildTask(BuildContext context, int from, int to) {
+            this.context = context;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                Scratch scratch = context.takeScratch();
+                for (int row = from; row < to; row++) {
+                    context.scoreRow(row, scratch);
+                }
+                context.returnScratch(scratch);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BuildTask(context, from, middle), new BuildTask(context, middle, to));
+        }
+    }
+}
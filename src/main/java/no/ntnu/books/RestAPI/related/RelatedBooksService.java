@@ -0,0 +1,213 @@
+package no.ntnu.books.RestAPI.related;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import no.ntnu.books.RestAPI.models.Author;
+import no.ntnu.books.RestAPI.models.Book;
+import no.ntnu.books.RestAPI.models.BookChange;
+import no.ntnu.books.RestAPI.models.RelatedBook;
+import no.ntnu.books.RestAPI.models.Tag;
+import no.ntnu.books.RestAPI.readmodel.CatalogLoader;
+import no.ntnu.books.RestAPI.readmodel.CatalogReadModel;
+import no.ntnu.books.RestAPI.readmodel.CatalogSnapshot;
+import no.ntnu.books.RestAPI.repositories.BookRepository;
+import no.ntnu.books.RestAPI.services.BookService;
+
+/**
+ * Serves related books from a {@link RelatedBooksIndex}. The index is built in the background
+ * after startup, and updated whenever a change to a book is committed. Until the first build is
+ * done, no related books are returned.
+ */
+@Service
+public class RelatedBooksService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelatedBooksService.class);
+
+    @Value("${books.related.enabled:true}")
+    private boolean enabled;
+
+    @Value("${books.related.neighbors:20}")
+    private int neighbors;
+
+    @Value("${books.related.author-weight:2.0}")
+    private float authorWeight;
+
+    @Value("${books.related.tag-weight:1.0}")
+    private float tagWeight;
+
+    @Value("${books.related.max-postings:1000}")
+    private int maxPostings;
+
+    @Autowired
+    private CatalogLoader catalogLoader;
+
+    @Autowired
+    private CatalogReadModel readModel;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile RelatedBooksIndex index;
+
+    // Books changed while a build is running, applied once it is done. Guarded by this
+    private final Set<Integer> changedDuringBuild = new HashSet<>();
+    private boolean building;
+
+    private TransactionTemplate newTransaction;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newTransaction.setReadOnly(true);
+        // Changes committed from here on are held back until the first build is done
+        if (enabled && startBuilding()) {
+            Thread builder = new Thread(this::build, "related-books-index");
+            builder.setDaemon(true);
+            builder.start();
+        }
+    }
+
+    /**
+     * Build the index from the catalog, reusing the read model's snapshot when it is loaded. The
+     * previous index, if any, keeps serving until the new one is done. Books changed in the
+     * meantime are applied to the new index afterwards.
+     */
+    public void rebuild() {
+        if (startBuilding()) {
+            build();
+        }
+    }
+
+    private synchronized boolean startBuilding() {
+        if (building) {
+            return false;
+        }
+        building = true;
+        return true;
+    }
+
+    private void build() {
+        try {
+            long start = System.nanoTime();
+            CatalogSnapshot snapshot =
+                    readModel.isServing() ? readModel.getSnapshot() : catalogLoader.load();
+            RelatedBooksIndex built = RelatedBooksIndex.build(snapshot,
+                    new RelatedBooksIndex.Settings(neighbors, authorWeight, tagWeight, maxPostings),
+                    ForkJoinPool.commonPool());
+            index = built;
+            logger.info("Built related books index for {} books in {} ms", built.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.error("Could not build the related books index", e);
+        }
+        Set<Integer> changed;
+        synchronized (this) {
+            changed = new HashSet<>(changedDuringBuild);
+            changedDuringBuild.clear();
+            building = false;
+        }
+        // Whichever index is serving now may not have seen these changes yet
+        RelatedBooksIndex current = index;
+        if (current != null) {
+            for (int bookId : changed) {
+                apply(current, bookId, false);
+            }
+        }
+    }
+
+    /**
+     * Get the books most related to a book.
+     *
+     * @param bookId The ID of the book
+     * @param limit The maximum number of books to return, at most books.related.neighbors
+     * @return The related books, most related first, empty until the index is built
+     */
+    public List<RelatedBook> getRelatedBooks(int bookId, int limit) {
+        RelatedBooksIndex current = index;
+        if (current == null || limit <= 0) {
+            return List.of();
+        }
+        RelatedBooksIndex.Neighbors related = current.related(bookId);
+        int count = Math.min(limit, related.size());
+        List<Integer> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(related.ids()[i]);
+        }
+        List<Book> books = bookService.findBooks(ids);
+        List<RelatedBook> result = new ArrayList<>(books.size());
+        int next = 0;
+        for (Book book : books) {
+            // Books are returned in the order asked for, books deleted in the meantime are left out
+            while (related.ids()[next] != book.getId()) {
+                next++;
+            }
+            result.add(new RelatedBook(book, related.scores()[next]));
+        }
+        return result;
+    }
+
+    /**
+     * Bring the index up to date with a committed change to a book.
+     *
+     * @param change The committed change
+     */
+    @TransactionalEventListener
+    public void onChange(BookChange change) {
+        RelatedBooksIndex current;
+        synchronized (this) {
+            if (building) {
+                changedDuringBuild.add(change.getBookId());
+                return;
+            }
+            current = index;
+        }
+        if (current != null) {
+            apply(current, change.getBookId(), change.getType() == BookChange.Type.DELETED);
+        }
+    }
+
+    /**
+     * Read a book's authors and tags as they are stored and update the index with them. The book is
+     * read in a new transaction, because the session of the request that changed it may still be
+     * open and hold the book as it was sent in, without its authors. Books that no longer exist are
+     * removed from the index.
+     */
+    private void apply(RelatedBooksIndex current, int bookId, boolean deleted) {
+        try {
+            int[] features = deleted ? null : newTransaction.execute(status -> bookRepository
+                    .findWithRelationsById(bookId).map(this::features).orElse(null));
+            current.update(bookId, features);
+        } catch (RuntimeException e) {
+            logger.error("Could not update book {} in the related books index", bookId, e);
+        }
+    }
+
+    private int[] features(Book book) {
+        return IntStream.concat(
+                book.getAuthors().stream().mapToInt(Author::getId)
+                        .map(RelatedBooksIndex::authorFeature),
+                book.getTags().stream().mapToInt(Tag::getId).map(RelatedBooksIndex::tagFeature))
+                .toArray();
+    }
+}
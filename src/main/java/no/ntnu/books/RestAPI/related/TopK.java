@@ -0,0 +1,97 @@
+package no.ntnu.books.RestAPI.related;
+
+/**
+ * Keeps the k best scoring books offered to it, using a min-heap so the worst of the kept books is
+ * always at the root. Higher scores are better; equal scores are ordered by lower book ID.
+ */
+final class TopK {
+    private final int k;
+    private final int[] ids;
+    private final float[] scores;
+    private int size;
+
+    TopK(int k) {
+        this.k = k;
+        this.ids = new int[k];
+        this.scores = new float[k];
+    }
+
+    void offer(int id, float score) {
+        if (k == 0) {
+            return;
+        }
+        if (size < k) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (better(id, score, ids[0], scores[0])) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Take the kept books out, best first, and reset for reuse.
+     */
+    RelatedBooksIndex.Neighbors drain() {
+        int count = size;
+        int[] resultIds = new int[count];
+        float[] resultScores = new float[count];
+        // Removing the root repeatedly yields the books worst first
+        for (int i = count - 1; i >= 0; i--) {
+            resultIds[i] = ids[0];
+            resultScores[i] = scores[0];
+            size--;
+            if (size > 0) {
+                ids[0] = ids[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+        }
+        return new RelatedBooksIndex.Neighbors(resultIds, resultScores);
+    }
+
+    static boolean better(int id, float score, int otherId, float otherScore) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!better(ids[parent], scores[parent], ids[i], scores[i])) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && better(ids[worst], scores[worst], ids[left], scores[left])) {
+                worst = left;
+            }
+            if (right < size && better(ids[worst], scores[worst], ids[right], scores[right])) {
+                worst = right;
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -1,12 +1,58 @@
 package no.ntnu.books.RestAPI.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
 import no.ntnu.books.RestAPI.models.Author;
 
 /**
  * Repository interface for Author entities.
- * Extends CrudRepository to provide basic CRUD operations for Author objects.
+ * Extends CrudRepository to provide basic CRUD operations for Author objects,
+ * and PagingAndSortingRepository to list them page by page.
  */
-public interface AuthorRepository extends CrudRepository<Author, Integer> {
-    // You can add custom query methods here if needed
-}
\ No newline at end of file
+public interface AuthorRepository
+        extends CrudRepository<Author, Integer>, PagingAndSortingRepository<Author, Integer> {
+
+    /**
+     * Find the IDs of the books written by an author that come after a given book ID, ordered by
+     * book ID. Seeks straight to the first row in the (author_id, book_id) primary key of the
+     * author_book join table, so the cost depends on the limit and not on how many books the
+     * author has written or how far into them the caller is.
+     *
+     * @param authorId The ID of the author
+     * @param after Only book IDs greater than this are returned, 0 for the first books
+     * @param limit The maximum number of book IDs to return
+     * @return The book IDs, in ascending order
+     */
+    @Query(value = "select book_id from author_book where author_id = :authorId"
+            + " and book_id > :after order by book_id limit :limit", nativeQuery = true)
+    List<Integer> findBookIdsByAuthorIdAfter(@Param("authorId") int authorId,
+            @Param("after") int after, @Param("limit") int limit);
+
+    /**
+     * Count the books of several authors in one query.
+     *
+     * @param authorIds The IDs of the authors
+     * @return [authorId, bookCount] rows, authors without books are left out
+     */
+    @Query(value = "select author_id, count(*) from author_book where author_id in (:authorIds)"
+            + " group by author_id", nativeQuery = true)
+    List<Object[]> countBooksByAuthorIds(@Param("authorIds") Collection<Integer> authorIds);
+
+    /**
+     * Stream the fields of every author, ordered by ID. Rows are streamed from the database
+     * instead of being loaded into memory at once. Must be called in a transaction.
+     *
+     * @return A stream of [id, firstname, lastName, birthYear] rows
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select a.id, a.firstname, a.lastName, a.birthYear from Author a order by a.id")
+    Stream<Object[]> streamAuthorRows();
+}
@@ -0,0 +1,44 @@
+package no.ntnu.books.RestAPI.repositories;
+
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import no.ntnu.books.RestAPI.models.BookChange;
+
+/**
+ * Repository interface for the book change log.
+ */
+public interface BookChangeRepository extends CrudRepository<BookChange, Long> {
+
+    /**
+     * Find the changes recorded after the given sequence number, oldest first.
+     *
+     * @param since Sequence number of the last change the caller has seen
+     * @param pageable Limits how many changes are returned
+     * @return The changes after {@code since}
+     */
+    List<BookChange> findByIdGreaterThanOrderByIdAsc(long since, Pageable pageable);
+
+    /**
+     * Advance the change log sequence by one. The sequence row stays locked until the calling
+     * transaction ends, so concurrent writers get their sequence numbers in commit order. Must be
+     * called in a transaction, followed by {@link #currentSequence()}.
+     *
+     * @return The number of rows updated, always 1
+     */
+    @Modifying
+    @Query(value = "update book_change_sequence set last_id = last_id + 1 where id = 1",
+            nativeQuery = true)
+    int advanceSequence();
+
+    /**
+     * Get the sequence number most recently handed out. Inside a transaction that has called
+     * {@link #advanceSequence()}, this is the number that transaction was given.
+     *
+     * @return The current sequence number
+     */
+    @Query(value = "select last_id from book_change_sequence where id = 1", nativeQuery = true)
+    long currentSequence();
+}
@@ -1,9 +1,95 @@
 package no.ntnu.books.RestAPI.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
 import no.ntnu.books.RestAPI.models.Book;
 
 public interface BookRepository extends CrudRepository<Book, Integer> {
-    // You can add custom query methods here if needed
 
+    /**
+     * Find a book with its authors and tags loaded in the same query, so the book can be handed
+     * to other threads without needing the session that loaded it.
+     *
+     * @param id The ID of the book
+     * @return The book, if found
+     */
+    @EntityGraph(attributePaths = {"authors", "tags"})
+    Optional<Book> findWithRelationsById(int id);
+
+    /**
+     * Find all books with their tags loaded in the same query. Fetching the authors in the same
+     * query as well would return one row per author and tag combination of every book; they are
+     * loaded in batches instead when first accessed, see {@link Book}.
+     *
+     * @return All books
+     */
+    @EntityGraph(attributePaths = "tags")
+    List<Book> findAllWithTagsBy();
+
+    /**
+     * Find the books with the given IDs, with their tags loaded in the same query. Authors are
+     * loaded in batches when first accessed.
+     *
+     * @param ids The IDs of the books
+     * @return The books found, in no particular order
+     */
+    @EntityGraph(attributePaths = "tags")
+    List<Book> findAllWithTagsByIdIn(Collection<Integer> ids);
+
+    /**
+     * Find the IDs of the authors of a book, as stored in the database.
+     *
+     * @param bookId The ID of the book
+     * @return The author IDs, in ascending order
+     */
+    @Query(value = "select author_id from author_book where book_id = :bookId order by author_id",
+            nativeQuery = true)
+    List<Integer> findAuthorIds(@Param("bookId") int bookId);
+
+    /**
+     * Find the IDs of the tags of a book, as stored in the database.
+     *
+     * @param bookId The ID of the book
+     * @return The tag IDs, in ascending order
+     */
+    @Query(value = "select tag_id from book_tag where book_id = :bookId order by tag_id",
+            nativeQuery = true)
+    List<Integer> findTagIds(@Param("bookId") int bookId);
+
+    /**
+     * Stream the fields of every book, ordered by ID. Rows are streamed from the database instead
+     * of being loaded into memory at once. Must be called in a transaction.
+     *
+     * @return A stream of [id, title, year, numberOfPages] rows
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.id, b.title, b.year, b.numberOfPages from Book b order by b.id")
+    Stream<Object[]> streamBookRows();
+
+    /**
+     * Stream every link between a book and its authors, ordered by book ID.
+     *
+     * @return A stream of [bookId, authorId] rows
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.id, a.id from Book b join b.authors a order by b.id")
+    Stream<Object[]> streamAuthorLinks();
+
+    /**
+     * Stream every link between a book and its tags, ordered by book ID.
+     *
+     * @return A stream of [bookId, tagId] rows
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.id, t.id from Book b join b.tags t order by b.id")
+    Stream<Object[]> streamTagLinks();
 }
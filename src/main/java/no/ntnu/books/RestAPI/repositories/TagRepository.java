@@ -0,0 +1,25 @@
+package no.ntnu.books.RestAPI.repositories;
+
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import jakarta.persistence.QueryHint;
+import no.ntnu.books.RestAPI.models.Tag;
+
+/**
+ * Repository interface for Tag entities.
+ */
+public interface TagRepository extends CrudRepository<Tag, Integer> {
+
+    /**
+     * Stream the ID and name of every tag, ordered by ID. Rows are streamed from the database
+     * instead of being loaded into memory at once. Must be called in a transaction.
+     *
+     * @return A stream of [id, name] rows
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select t.id, t.name from Tag t order by t.id")
+    Stream<Object[]> streamTagRows();
+}
@@ -1,7 +1,20 @@
 package no.ntnu.books.RestAPI.services;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import no.ntnu.books.RestAPI.models.Author;
+import no.ntnu.books.RestAPI.models.AuthorSummary;
+import no.ntnu.books.RestAPI.models.Book;
+import no.ntnu.books.RestAPI.readmodel.CatalogReadModel;
 import no.ntnu.books.RestAPI.repositories.AuthorRepository;
 
 @Service
@@ -9,7 +22,69 @@ public class AuthorService {
   @Autowired
   private AuthorRepository authorRepository;
 
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private CatalogReadModel readModel;
+
   public long getAuthorCount() {
+    if (readModel.isServing()) {
+      return readModel.getSnapshot().authorCount();
+    }
     return authorRepository.count();
   }
+
+  /**
+   * Get a page of authors with their book counts. The book counts of the whole page are fetched
+   * in one query.
+   *
+   * @param pageable The page to return
+   * @return A page of authors
+   */
+  public Page<AuthorSummary> getAuthors(Pageable pageable) {
+    Page<Author> authors = authorRepository.findAll(pageable);
+    Map<Integer, Long> bookCounts =
+        countBooks(authors.getContent().stream().map(Author::getId).toList());
+    return authors.map(
+        author -> new AuthorSummary(author, bookCounts.getOrDefault(author.getId(), 0L)));
+  }
+
+  public Optional<AuthorSummary> findAuthor(int id) {
+    return authorRepository.findById(id)
+        .map(author -> new AuthorSummary(author, countBooks(List.of(id)).getOrDefault(id, 0L)));
+  }
+
+  /**
+   * Get the books written by an author that come after a given book, ordered by book ID. The
+   * books are not counted, so every slice costs the same however many books the author has.
+   *
+   * @param authorId The ID of the author
+   * @param after The ID of the last book of the previous slice, 0 for the first slice
+   * @param size The maximum number of books in the slice
+   * @return A slice of books, or empty if there is no author with the given ID
+   */
+  public Optional<Slice<Book>> getBooksByAuthor(int authorId, int after, int size) {
+    if (!authorRepository.existsById(authorId)) {
+      return Optional.empty();
+    }
+    // One extra ID tells whether there is a next slice
+    List<Integer> bookIds = authorRepository.findBookIdsByAuthorIdAfter(authorId, after, size + 1);
+    boolean hasNext = bookIds.size() > size;
+    if (hasNext) {
+      bookIds = bookIds.subList(0, size);
+    }
+    List<Book> books = bookService.findBooks(bookIds);
+    return Optional.of(new SliceImpl<>(books, PageRequest.ofSize(size), hasNext));
+  }
+
+  private Map<Integer, Long> countBooks(List<Integer> authorIds) {
+    Map<Integer, Long> bookCounts = new HashMap<>();
+    if (!authorIds.isEmpty()) {
+      for (Object[] row : authorRepository.countBooksByAuthorIds(authorIds)) {
+        bookCounts.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+      }
+    }
+    return bookCounts;
+  }
 }
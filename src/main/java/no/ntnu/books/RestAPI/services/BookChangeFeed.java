@@ -0,0 +1,302 @@
+package no.ntnu.books.RestAPI.services;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import no.ntnu.books.RestAPI.models.Book;
+import no.ntnu.books.RestAPI.models.BookChange;
+import no.ntnu.books.RestAPI.models.BookChangePage;
+import no.ntnu.books.RestAPI.repositories.BookChangeRepository;
+import no.ntnu.books.RestAPI.repositories.BookRepository;
+
+/**
+ * Records changes to books and hands them out to downstream consumers, either page by page from
+ * the change log or live as a Server-Sent Events stream.
+ *
+ * Sequence numbers come from a single-row counter that stays locked until the writing transaction
+ * ends. Writers therefore commit in sequence order and the sequence has no gaps, so a consumer that
+ * has seen a change has also been able to see every change before it.
+ *
+ * Each stream subscriber gets its own bounded buffer. A subscriber that falls so far behind that
+ * its buffer fills up is disconnected instead of holding on to an ever growing backlog; it
+ * reconnects with the Last-Event-ID header and catches up from the change log. Subscribers share a
+ * bounded pool of sender threads; when it is too busy to take more work the subscriber is
+ * disconnected the same way.
+ */
+@Service
+public class BookChangeFeed {
+  private static final Logger logger = LoggerFactory.getLogger(BookChangeFeed.class);
+
+  /** The largest page of changes handed out in one request. */
+  public static final int MAX_PAGE_SIZE = 1000;
+
+  @Autowired
+  private BookChangeRepository changeRepository;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Value("${books.changes.buffer-size:256}")
+  private int bufferSize;
+
+  @Value("${books.changes.stream-timeout:30m}")
+  private Duration streamTimeout;
+
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+  @Value("${books.changes.sender-threads:8}")
+  private int senderThreads;
+
+  @Value("${books.changes.sender-queue-size:256}")
+  private int senderQueueSize;
+
+  private ThreadPoolExecutor sender;
+
+  @PostConstruct
+  public void init() {
+    sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(senderQueueSize), new SenderThreadFactory());
+    sender.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Record a change to a book. Must be called inside the transaction that makes the change, so the
+   * change log never disagrees with the books table. Live subscribers are notified once the
+   * transaction commits.
+   *
+   * The sequence number is taken last, because it serializes writers until they commit.
+   *
+   * @param type The kind of change
+   * @param book The book as it looks after the change
+   * @return The recorded change, with its sequence number
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public BookChange record(BookChange.Type type, Book book) {
+    // Write the book first, so its author and tag links are read as they will be committed
+    entityManager.flush();
+    List<Integer> authorIds = List.of();
+    List<Integer> tagIds = List.of();
+    if (type != BookChange.Type.DELETED) {
+      authorIds = bookRepository.findAuthorIds(book.getId());
+      tagIds = bookRepository.findTagIds(book.getId());
+    }
+    changeRepository.advanceSequence();
+    long sequence = changeRepository.currentSequence();
+    BookChange change = new BookChange(sequence, type, book, authorIds, tagIds);
+    entityManager.persist(change);
+    eventPublisher.publishEvent(change);
+    return change;
+  }
+
+  /**
+   * Get the changes recorded after the given sequence number.
+   *
+   * @param since Sequence number of the last change the caller has seen, 0 for everything
+   * @param limit The maximum number of changes to return, capped at {@link #MAX_PAGE_SIZE}
+   * @return A page of changes, oldest first
+   */
+  public BookChangePage getChanges(long since, int limit) {
+    int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    List<BookChange> changes =
+        changeRepository.findByIdGreaterThanOrderByIdAsc(since, PageRequest.of(0, size + 1));
+    boolean hasMore = changes.size() > size;
+    if (hasMore) {
+      changes = changes.subList(0, size);
+    }
+    long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getId();
+    return new BookChangePage(List.copyOf(changes), nextSince, hasMore);
+  }
+
+  /**
+   * Open a live stream of changes. Changes recorded after {@code since} are replayed first, then
+   * new changes are sent as they are committed.
+   *
+   * @param since Sequence number of the last change the caller has seen, 0 for everything
+   * @return The emitter that streams the changes
+   */
+  public SseEmitter subscribe(long since) {
+    SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+    Subscriber subscriber = new Subscriber(emitter, since);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(e -> subscribers.remove(subscriber));
+    subscribers.add(subscriber);
+    subscriber.execute(subscriber::replay);
+    return emitter;
+  }
+
+  /**
+   * Pass a committed change on to every live subscriber.
+   *
+   * @param change The change that was committed
+   */
+  @TransactionalEventListener
+  public void onChange(BookChange change) {
+    for (Subscriber subscriber : subscribers) {
+      subscriber.offer(change);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    for (Subscriber subscriber : subscribers) {
+      subscriber.close(null);
+    }
+    sender.shutdownNow();
+  }
+
+  /**
+   * A single stream consumer. Changes are queued in a bounded buffer and written to the emitter by
+   * at most one sender thread at a time, so a slow client never blocks the writing transaction.
+   */
+  private final class Subscriber {
+    private final SseEmitter emitter;
+    private final BlockingQueue<BookChange> buffer;
+    // Starts out as true so live changes are only buffered until the replay is done
+    private final AtomicBoolean draining = new AtomicBoolean(true);
+    private volatile long lastSent;
+    private volatile boolean closed;
+
+    Subscriber(SseEmitter emitter, long since) {
+      this.emitter = emitter;
+      this.buffer = new ArrayBlockingQueue<>(bufferSize);
+      this.lastSent = since;
+    }
+
+    void replay() {
+      try {
+        catchUp();
+      } catch (Exception e) {
+        close(e);
+        return;
+      }
+      draining.set(false);
+      schedule();
+    }
+
+    void offer(BookChange change) {
+      if (closed) {
+        return;
+      }
+      if (!buffer.offer(change)) {
+        logger.warn("Change stream subscriber fell behind at change {}, disconnecting", lastSent);
+        close(null);
+        return;
+      }
+      schedule();
+    }
+
+    private void schedule() {
+      if (!closed && !buffer.isEmpty() && draining.compareAndSet(false, true)) {
+        execute(this::drain);
+      }
+    }
+
+    void execute(Runnable task) {
+      try {
+        sender.execute(task);
+      } catch (RejectedExecutionException e) {
+        logger.warn("Change stream senders are saturated, disconnecting subscriber at change {}",
+            lastSent);
+        close(null);
+      }
+    }
+
+    private void drain() {
+      try {
+        BookChange change;
+        while (!closed && (change = buffer.poll()) != null) {
+          // Commit callbacks can run out of order. An earlier change that has not been offered
+          // yet is already committed, so it is read from the change log instead of being lost.
+          if (change.getId() > lastSent + 1) {
+            catchUp();
+          }
+          // Changes already sent during the replay or a catch-up are skipped
+          if (change.getId() > lastSent) {
+            send(change);
+          }
+        }
+      } catch (Exception e) {
+        close(e);
+        return;
+      }
+      draining.set(false);
+      // A change may have been offered after the last poll but before the flag was cleared
+      schedule();
+    }
+
+    /**
+     * Send everything in the change log after the last change sent.
+     */
+    private void catchUp() throws IOException {
+      BookChangePage page;
+      do {
+        page = getChanges(lastSent, MAX_PAGE_SIZE);
+        for (BookChange change : page.changes()) {
+          send(change);
+        }
+      } while (page.hasMore() && !closed);
+    }
+
+    private void send(BookChange change) throws IOException {
+      emitter.send(SseEmitter.event()
+          .id(Long.toString(change.getId()))
+          .name(change.getType().name())
+          .data(change));
+      lastSent = change.getId();
+    }
+
+    void close(Exception error) {
+      closed = true;
+      subscribers.remove(this);
+      buffer.clear();
+      if (error == null) {
+        emitter.complete();
+      } else {
+        emitter.completeWithError(error);
+      }
+    }
+  }
+
+  private static final class SenderThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "change-feed-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
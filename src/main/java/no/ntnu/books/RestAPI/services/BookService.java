@@ -1,8 +1,23 @@
 package no.ntnu.books.RestAPI.services;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import no.ntnu.books.RestAPI.models.Book;
+import no.ntnu.books.RestAPI.models.BookChange;
+import no.ntnu.books.RestAPI.readmodel.CatalogReadModel;
 import no.ntnu.books.RestAPI.repositories.BookRepository;
 
 @Service
@@ -10,11 +25,142 @@ public class BookService {
   @Autowired
   private BookRepository bookRepository;
 
+  @Autowired
+  private BookChangeFeed changeFeed;
+
+  @Autowired
+  private CatalogReadModel readModel;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${books.coalescing.timeout:5s}")
+  private Duration coalescingTimeout;
+
+  // Concurrent identical reads share one database call, see SingleFlight
+  private SingleFlight<Integer, Optional<Book>> lookups;
+  private SingleFlight<String, List<Book>> listings;
+
+  private TransactionTemplate readOnlyTransaction;
+
+  @PostConstruct
+  public void init() {
+    lookups = new SingleFlight<>("lookup", coalescingTimeout, meterRegistry);
+    listings = new SingleFlight<>("listing", coalescingTimeout, meterRegistry);
+    readOnlyTransaction = new TransactionTemplate(transactionManager);
+    readOnlyTransaction.setReadOnly(true);
+  }
+
   public Iterable<Book> getAllBooks() {
-    return bookRepository.findAll();
+    if (readModel.isServing()) {
+      return readModel.getAllBooks();
+    }
+    return listings.execute("all", () -> loadBooks(bookRepository::findAllWithTagsBy));
+  }
+
+  public Optional<Book> findBook(int id) {
+    if (readModel.isServing()) {
+      return readModel.findBook(id);
+    }
+    return lookups.execute(id, () -> bookRepository.findWithRelationsById(id));
+  }
+
+  /**
+   * Find the books with the given IDs, in the order of the IDs. IDs without a book are skipped.
+   *
+   * @param ids The IDs of the books
+   * @return The books found
+   */
+  public List<Book> findBooks(List<Integer> ids) {
+    if (readModel.isServing()) {
+      return ids.stream().map(readModel::findBook).flatMap(Optional::stream).toList();
+    }
+    Map<Integer, Book> books = new HashMap<>();
+    for (Book book : loadBooks(() -> bookRepository.findAllWithTagsByIdIn(ids))) {
+      books.put(book.getId(), book);
+    }
+    return ids.stream().map(books::get).filter(Objects::nonNull).toList();
+  }
+
+  /**
+   * Run a query for books and load their authors in the same transaction, so the books can be
+   * handed to other threads without needing the session that loaded them.
+   *
+   * @param query The query for the books, which loads their tags
+   * @return The books found
+   */
+  private List<Book> loadBooks(Supplier<List<Book>> query) {
+    return readOnlyTransaction.execute(status -> {
+      List<Book> books = query.get();
+      // Authors are loaded in batches as each book's set is first accessed
+      books.forEach(Book::getAuthors);
+      return books;
+    });
+  }
+
+  public boolean bookExists(int id) {
+    if (readModel.isServing()) {
+      return readModel.getSnapshot().indexOf(id) >= 0;
+    }
+    return bookRepository.existsById(id);
   }
 
   public long getBookCount() {
+    if (readModel.isServing()) {
+      return readModel.getSnapshot().size();
+    }
     return bookRepository.count();
   }
+
+  /**
+   * Save a new book and record the change in the same transaction.
+   *
+   * @param book The book to add
+   * @return The saved book
+   */
+  @Transactional
+  public Book addBook(Book book) {
+    Book savedBook = bookRepository.save(book);
+    changeFeed.record(BookChange.Type.CREATED, savedBook);
+    return savedBook;
+  }
+
+  /**
+   * Update the book with the given ID and record the change in the same transaction.
+   *
+   * @param id The ID of the book to update
+   * @param book The updated book
+   * @return true if the book was updated, false if no book has the given ID
+   */
+  @Transactional
+  public boolean updateBook(int id, Book book) {
+    if (!bookRepository.existsById(id)) {
+      return false;
+    }
+    // Set the ID to ensure we're updating the correct book
+    book.setId(id);
+    Book savedBook = bookRepository.save(book);
+    changeFeed.record(BookChange.Type.UPDATED, savedBook);
+    return true;
+  }
+
+  /**
+   * Delete the book with the given ID and record the change in the same transaction.
+   *
+   * @param id The ID of the book to delete
+   * @return true if the book was deleted, false if no book has the given ID
+   */
+  @Transactional
+  public boolean deleteBook(int id) {
+    Optional<Book> existingBook = bookRepository.findById(id);
+    if (existingBook.isEmpty()) {
+      return false;
+    }
+    bookRepository.delete(existingBook.get());
+    changeFeed.record(BookChange.Type.DELETED, existingBook.get());
+    return true;
+  }
 }
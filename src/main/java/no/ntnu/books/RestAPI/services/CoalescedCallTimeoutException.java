@@ -0,0 +1,14 @@
+package no.ntnu.books.RestAPI.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a caller gave up waiting for an identical call that was already in flight.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CoalescedCallTimeoutException extends RuntimeException {
+  public CoalescedCallTimeoutException(String group, Object key) {
+    super("Timed out waiting for " + group + " call in flight for " + key);
+  }
+}
@@ -0,0 +1,115 @@
+package no.ntnu.books.RestAPI.services;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces concurrent identical calls into one.
+ *
+ * The first caller for a key runs the call on its own thread. Callers that ask for the same key
+ * while that call is in flight wait for it, up to a timeout, and get the same result or the same
+ * exception. Once the call completes the key is forgotten, so a result is only shared with callers
+ * that arrived while the call was in flight, and nothing is cached.
+ *
+ * Sharing can still return a result from before a write: a caller that arrives just after a write
+ * committed may join a call that started before the commit, and get what that call read. Such a
+ * result is never older than the duration of one call.
+ *
+ * The number of calls and how many of them shared another call's result are published as the
+ * books.coalescing.calls and books.coalescing.shared counters, and their ratio as the
+ * books.coalescing.ratio gauge, tagged with the name of the single-flight group.
+ *
+ * @param <K> The type of the keys identifying identical calls
+ * @param <V> The type of the call results
+ */
+public class SingleFlight<K, V> {
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final String name;
+  private final long timeoutNanos;
+  private final Counter calls;
+  private final Counter shared;
+
+  /**
+   * Create a single-flight group.
+   *
+   * @param name The name of the group, used as metrics tag
+   * @param timeout How long a caller waits for a call started by another caller
+   * @param meterRegistry The registry to publish the metrics to
+   */
+  public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+    this.name = name;
+    this.timeoutNanos = timeout.toNanos();
+    this.calls = Counter.builder("books.coalescing.calls")
+        .description("Calls made through the single-flight group")
+        .tag("group", name).register(meterRegistry);
+    this.shared = Counter.builder("books.coalescing.shared")
+        .description("Calls that shared the result of a call already in flight")
+        .tag("group", name).register(meterRegistry);
+    Gauge.builder("books.coalescing.ratio", this, SingleFlight::getCoalescingRatio)
+        .description("Share of calls served by a call already in flight")
+        .tag("group", name).register(meterRegistry);
+  }
+
+  /**
+   * Run the call for the given key, or wait for the result of an identical call in flight.
+   *
+   * @param key The key identifying the call
+   * @param loader The call to run if none is in flight for the key
+   * @return The result of the call
+   * @throws CoalescedCallTimeoutException if the call in flight did not complete in time
+   */
+  public V execute(K key, Supplier<V> loader) {
+    calls.increment();
+    CompletableFuture<V> call = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+    if (existing == null) {
+      try {
+        V result = loader.get();
+        call.complete(result);
+        return result;
+      } catch (RuntimeException | Error e) {
+        call.completeExceptionally(e);
+        throw e;
+      } finally {
+        inFlight.remove(key, call);
+      }
+    }
+
+    shared.increment();
+    try {
+      return existing.get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw new CoalescedCallTimeoutException(name, key);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CoalescedCallTimeoutException(name, key);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Get the share of calls that were served by a call already in flight.
+   *
+   * @return The coalescing ratio, between 0 and 1
+   */
+  public double getCoalescingRatio() {
+    double total = calls.count();
+    return total == 0 ? 0 : shared.count() / total;
+  }
+}
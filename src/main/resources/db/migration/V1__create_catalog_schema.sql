@@ -0,0 +1,41 @@
+-- Initial catalog schema, matching what Hibernate used to generate with ddl-auto=update.
+-- Databases created before migrations were introduced are baselined at this version.
+
+CREATE TABLE book (
+    id              INT          NOT NULL AUTO_INCREMENT,
+    title           VARCHAR(255),
+    year            INT          NOT NULL,
+    number_of_pages INT          NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE author (
+    id         INT          NOT NULL AUTO_INCREMENT,
+    firstname  VARCHAR(255),
+    last_name  VARCHAR(255),
+    birth_year INT          NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE tag (
+    id   INT          NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_tag_name UNIQUE (name)
+);
+
+CREATE TABLE author_book (
+    author_id INT NOT NULL,
+    book_id   INT NOT NULL,
+    PRIMARY KEY (author_id, book_id),
+    CONSTRAINT fk_author_book_author FOREIGN KEY (author_id) REFERENCES author (id),
+    CONSTRAINT fk_author_book_book FOREIGN KEY (book_id) REFERENCES book (id)
+);
+
+CREATE TABLE book_tag (
+    book_id INT NOT NULL,
+    tag_id  INT NOT NULL,
+    PRIMARY KEY (book_id, tag_id),
+    CONSTRAINT fk_book_tag_book FOREIGN KEY (book_id) REFERENCES book (id),
+    CONSTRAINT fk_book_tag_tag FOREIGN KEY (tag_id) REFERENCES tag (id)
+);
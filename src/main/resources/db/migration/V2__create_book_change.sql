@@ -0,0 +1,24 @@
+-- Change log of the book catalog, see BookChange.
+
+CREATE TABLE book_change (
+    id              BIGINT        NOT NULL,
+    type            VARCHAR(16)   NOT NULL,
+    book_id         INT           NOT NULL,
+    title           VARCHAR(255),
+    year            INT,
+    number_of_pages INT,
+    author_ids      VARCHAR(4000),
+    tag_ids         VARCHAR(4000),
+    changed_at      DATETIME(6)   NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Hands out the sequence numbers of the change log. The single row stays locked until the
+-- writing transaction ends, so sequence numbers become visible in the order they were handed out.
+CREATE TABLE book_change_sequence (
+    id      INT    NOT NULL,
+    last_id BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO book_change_sequence (id, last_id) VALUES (1, 0);
@@ -0,0 +1,185 @@
+package no.ntnu.books.RestAPI.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimiterTest {
+
+    @Test
+    void admitsRequestsUpToTheLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(bulkhead(2, 10, 0));
+
+        limiter.acquire();
+        limiter.acquire();
+
+        assertEquals(2, limiter.getInFlight());
+        AdmissionRejectedException rejected =
+                assertThrows(AdmissionRejectedException.class, limiter::acquire);
+        assertEquals(AdaptiveLimiter.Rejection.QUEUE_FULL, rejected.getRejection());
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() {
+        AdmissionProperties.Bulkhead settings = bulkhead(1, 1, 1);
+        settings.setQueueTimeout(Duration.ofSeconds(5));
+        AdaptiveLimiter limiter = new AdaptiveLimiter(settings);
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+        CompletableFuture<AdaptiveLimiter.Permit> waiting =
+                CompletableFuture.supplyAsync(limiter::acquire);
+        awaitQueued(limiter, 1);
+
+        AdmissionRejectedException rejected =
+                assertThrows(AdmissionRejectedException.class, limiter::acquire);
+
+        assertEquals(AdaptiveLimiter.Rejection.QUEUE_FULL, rejected.getRejection());
+        permit.release(false);
+        waiting.join().release(false);
+    }
+
+    @Test
+    void rejectsWhenNoSlotIsFreedWithinTheQueueTimeout() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(bulkhead(1, 1, 1));
+        limiter.acquire();
+
+        AdmissionRejectedException rejected =
+                assertThrows(AdmissionRejectedException.class, limiter::acquire);
+
+        assertEquals(AdaptiveLimiter.Rejection.TIMEOUT, rejected.getRejection());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void queuedRequestGetsTheReleasedSlot() throws Exception {
+        AdmissionProperties.Bulkhead settings = bulkhead(1, 1, 1);
+        settings.setQueueTimeout(Duration.ofSeconds(5));
+        AdaptiveLimiter limiter = new AdaptiveLimiter(settings);
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+        CompletableFuture<AdaptiveLimiter.Permit> waiting =
+                CompletableFuture.supplyAsync(limiter::acquire);
+        awaitQueued(limiter, 1);
+
+        permit.release(false);
+
+        waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void queuedRequestGetsTheReleasedSlotBeforeALaterRequest() throws Exception {
+        AdmissionProperties.Bulkhead settings = bulkhead(1, 1, 2);
+        settings.setQueueTimeout(Duration.ofSeconds(5));
+        AdaptiveLimiter limiter = new AdaptiveLimiter(settings);
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+        CompletableFuture<AdaptiveLimiter.Permit> waiting =
+                CompletableFuture.supplyAsync(limiter::acquire);
+        awaitQueued(limiter, 1);
+
+        // The slot is handed over on release, before the waiting request has even woken up
+        permit.release(false);
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+
+        CompletableFuture<AdaptiveLimiter.Permit> later =
+                CompletableFuture.supplyAsync(limiter::acquire);
+        AdaptiveLimiter.Permit first = waiting.get(5, TimeUnit.SECONDS);
+        awaitQueued(limiter, 1);
+        assertFalse(later.isDone());
+
+        first.release(false);
+        later.get(5, TimeUnit.SECONDS).release(false);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void limitGrowsWhileItIsUsedAndRequestsAreFast() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(bulkhead(2, 3, 0));
+
+        AdaptiveLimiter.Permit first = limiter.acquire();
+        AdaptiveLimiter.Permit second = limiter.acquire();
+        first.release(false);
+        assertEquals(3, limiter.getLimit());
+
+        // The limit never grows beyond the max limit
+        AdaptiveLimiter.Permit third = limiter.acquire();
+        AdaptiveLimiter.Permit fourth = limiter.acquire();
+        third.release(false);
+        assertEquals(3, limiter.getLimit());
+        second.release(false);
+        fourth.release(false);
+    }
+
+    @Test
+    void limitDoesNotGrowWhileMostOfItIsUnused() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(bulkhead(10, 20, 0));
+
+        limiter.acquire().release(false);
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void slowRequestLowersTheLimit() throws Exception {
+        AdmissionProperties.Bulkhead settings = bulkhead(10, 20, 0);
+        settings.setLatencyThreshold(Duration.ofMillis(1));
+        AdaptiveLimiter limiter = new AdaptiveLimiter(settings);
+
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+        Thread.sleep(20);
+        permit.release(false);
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void failedRequestsLowerTheLimitDownToTheMinLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(bulkhead(10, 20, 0));
+
+        limiter.acquire().release(true);
+        assertEquals(5, limiter.getLimit());
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire().release(true);
+        }
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void releasingAPermitTwiceFreesOneSlot() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(bulkhead(2, 2, 0));
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+        limiter.acquire();
+
+        permit.release(false);
+        permit.release(false);
+
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    private static AdmissionProperties.Bulkhead bulkhead(int initialLimit, int maxLimit,
+            int maxQueue) {
+        AdmissionProperties.Bulkhead settings = new AdmissionProperties.Bulkhead();
+        settings.setInitialLimit(initialLimit);
+        settings.setMinLimit(1);
+        settings.setMaxLimit(maxLimit);
+        settings.setMaxQueue(maxQueue);
+        settings.setQueueTimeout(Duration.ofMillis(50));
+        settings.setLatencyThreshold(Duration.ofMinutes(1));
+        settings.setBackoffRatio(0.5);
+        return settings;
+    }
+
+    private static void awaitQueued(AdaptiveLimiter limiter, int queued) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getQueued() < queued) {
+            assertTrue(System.nanoTime() < deadline, "request was never queued");
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package no.ntnu.books.RestAPI.admission;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class AdmissionConfigTest {
+
+    @Test
+    void acceptsBulkheadsThatFitInTheConnectionPool() {
+        AdmissionProperties properties = properties(4, 4, 8, 2);
+
+        assertDoesNotThrow(() -> AdmissionConfig.fitToPoolSize(properties, 20));
+        assertDoesNotThrow(() -> AdmissionConfig.fitToPoolSize(properties, 18));
+    }
+
+    @Test
+    void rejectsBulkheadsThatNeedMoreConnectionsThanThePoolHas() {
+        AdmissionProperties properties = properties(8, 8, 100, 2);
+
+        assertThrows(IllegalStateException.class,
+                () -> AdmissionConfig.fitToPoolSize(properties, 10));
+    }
+
+    @Test
+    void bulkheadsWithoutAMaxLimitShareTheConnectionsLeftOver() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.getBulkheads().put("lookup", bulkhead(4));
+
+        AdmissionConfig.fitToPoolSize(properties, 10);
+
+        assertEquals(4, properties.getBulkhead("lookup").getMaxLimit());
+        assertEquals(2, properties.getBulkhead("listing").getMaxLimit());
+        assertEquals(2, properties.getBulkhead("pages").getMaxLimit());
+        assertEquals(2, properties.getBulkhead("related").getMaxLimit());
+    }
+
+    @Test
+    void defaultBulkheadsFitInTheDefaultConnectionPool() {
+        assertDoesNotThrow(() -> AdmissionConfig.fitToPoolSize(new AdmissionProperties(), 10));
+    }
+
+    private static AdmissionProperties properties(int listing, int pages, int lookup,
+            int related) {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.getBulkheads().put("listing", bulkhead(listing));
+        properties.getBulkheads().put("pages", bulkhead(pages));
+        properties.getBulkheads().put("lookup", bulkhead(lookup));
+        properties.getBulkheads().put("related", bulkhead(related));
+        return properties;
+    }
+
+    private static AdmissionProperties.Bulkhead bulkhead(int maxLimit) {
+        AdmissionProperties.Bulkhead bulkhead = new AdmissionProperties.Bulkhead();
+        bulkhead.setMaxLimit(maxLimit);
+        return bulkhead;
+    }
+}
@@ -0,0 +1,46 @@
+package no.ntnu.books.RestAPI.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class EndpointClassTest {
+
+    @Test
+    void classifiesTheCatalogListing() {
+        assertEquals(EndpointClass.LISTING, EndpointClass.of("GET", "/bookss"));
+        assertEquals(EndpointClass.LISTING, EndpointClass.of("GET", "/bookss/"));
+    }
+
+    @Test
+    void classifiesTheHtmlPages() {
+        assertEquals(EndpointClass.PAGES, EndpointClass.of("GET", "/"));
+        assertEquals(EndpointClass.PAGES, EndpointClass.of("GET", "/books"));
+    }
+
+    @Test
+    void classifiesSingleBookLookups() {
+        assertEquals(EndpointClass.LOOKUP, EndpointClass.of("GET", "/bookss/1"));
+        assertEquals(EndpointClass.LOOKUP, EndpointClass.of("GET", "/bookss/123456"));
+    }
+
+    @Test
+    void classifiesRelatedBooks() {
+        assertEquals(EndpointClass.RELATED, EndpointClass.of("GET", "/bookss/1/related"));
+        assertEquals(EndpointClass.RELATED, EndpointClass.of("GET", "/bookss/123456/related"));
+    }
+
+    @Test
+    void leavesOtherRequestsAlone() {
+        assertNull(EndpointClass.of("POST", "/bookss"));
+        assertNull(EndpointClass.of("PUT", "/bookss/1"));
+        assertNull(EndpointClass.of("DELETE", "/bookss/1"));
+        assertNull(EndpointClass.of("GET", "/bookss/abc"));
+        assertNull(EndpointClass.of("GET", "/bookss/related"));
+        assertNull(EndpointClass.of("GET", "/bookss/abc/related"));
+        assertNull(EndpointClass.of("GET", "/bookss/changes"));
+        assertNull(EndpointClass.of("GET", "/about"));
+        assertNull(EndpointClass.of("GET", "/actuator/health"));
+    }
+}
@@ -0,0 +1,51 @@
+package no.ntnu.books.RestAPI.readmodel;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class AppliedChangesTest {
+
+    @Test
+    void changesUpToTheLoadedSequenceCountAsApplied() {
+        AppliedChanges applied = new AppliedChanges(8);
+        applied.reset(10);
+
+        assertTrue(applied.contains(1));
+        assertTrue(applied.contains(10));
+        assertFalse(applied.contains(11));
+    }
+
+    @Test
+    void changeArrivingAheadOfAnEarlierOneIsRemembered() {
+        AppliedChanges applied = new AppliedChanges(8);
+        applied.reset(10);
+
+        applied.add(12);
+        assertFalse(applied.contains(11));
+        assertTrue(applied.contains(12));
+
+        applied.add(11);
+        assertTrue(applied.contains(11));
+        assertTrue(applied.contains(12));
+        assertFalse(applied.contains(13));
+    }
+
+    @Test
+    void changeThatNeverArrivesIsGivenUpOnOnceTheWindowIsFull() {
+        AppliedChanges applied = new AppliedChanges(8);
+        applied.reset(0);
+
+        // Change 1 never arrives
+        for (long id = 2; id <= 8; id++) {
+            applied.add(id);
+        }
+        assertFalse(applied.contains(1));
+
+        applied.add(9);
+        assertTrue(applied.contains(1));
+        assertTrue(applied.contains(9));
+        assertFalse(applied.contains(10));
+    }
+}
@@ -0,0 +1,77 @@
+package no.ntnu.books.RestAPI.readmodel;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import no.ntnu.books.RestAPI.models.Author;
+import no.ntnu.books.RestAPI.models.Book;
+import no.ntnu.books.RestAPI.models.BookChange;
+import no.ntnu.books.RestAPI.repositories.AuthorRepository;
+import no.ntnu.books.RestAPI.repositories.BookRepository;
+
+@SpringBootTest(properties = "books.read-model.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CatalogReadModelTest {
+
+    private static final String UPDATE =
+            "{\"title\": \"After\", \"year\": 2001, \"numberOfPages\": 120}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CatalogReadModel readModel;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Test
+    void updateWithoutAuthorsKeepsTheAuthorsOfTheBook() throws Exception {
+        int bookId = bookWithAuthor();
+
+        mockMvc.perform(put("/bookss/" + bookId).contentType(MediaType.APPLICATION_JSON)
+                .content(UPDATE)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/bookss/" + bookId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("After"))
+                .andExpect(jsonPath("$.authors.length()").value(1))
+                .andExpect(jsonPath("$.authors[0].lastName").value("Lovelace"));
+    }
+
+    @Test
+    void changeOlderThanTheLastAppliedOneIsSkipped() throws Exception {
+        int bookId = bookWithAuthor();
+        mockMvc.perform(put("/bookss/" + bookId).contentType(MediaType.APPLICATION_JSON)
+                .content(UPDATE)).andExpect(status().isOk());
+
+        // A delete recorded before the update, whose commit callback arrives late
+        readModel.onChange(new BookChange(0, BookChange.Type.DELETED,
+                new Book(bookId, null, 0, 0), List.of(), List.of()));
+
+        assertTrue(readModel.findBook(bookId).isPresent());
+    }
+
+    private int bookWithAuthor() {
+        Book book = bookRepository.save(new Book(0, "Before", 2000, 100));
+        Author author = new Author(0, "Ada", "Lovelace", 1815);
+        author.addBook(book);
+        authorRepository.save(author);
+        return book.getId();
+    }
+}
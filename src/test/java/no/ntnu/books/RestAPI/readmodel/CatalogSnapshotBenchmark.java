@@ -0,0 +1,83 @@
+package no.ntnu.books.RestAPI.readmodel;
+
+import java.util.Random;
+
+/**
+ * Measures the memory footprint of a {@link CatalogSnapshot} and the latency of looking up a book
+ * in it, on a synthetic catalog. Not part of the test suite; run the main method directly, for
+ * example with a profiler attached to confirm the lookup path does not allocate.
+ *
+ * Arguments: [number of books, default 100000]
+ */
+public class CatalogSnapshotBenchmark {
+
+    private static final int AUTHORS_PER_BOOK = 2;
+    private static final int TAGS_PER_BOOK = 4;
+
+    public static void main(String[] args) {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int authors = Math.max(1, books / 5);
+        int tags = 500;
+        Random random = new Random(42);
+
+        long buildStart = System.nanoTime();
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+        for (int author = 1; author <= authors; author++) {
+            builder.addAuthor(author, "First" + author, "Last" + author, 1900 + author % 100);
+        }
+        for (int tag = 1; tag <= tags; tag++) {
+            builder.addTag(tag, "tag-" + tag);
+        }
+        for (int book = 1; book <= books; book++) {
+            // Titles repeat across books so interning has something to share
+            builder.addBook(book, "Title " + (book % (books / 2 + 1)), 1900 + book % 120,
+                    100 + book % 900);
+            for (int i = 0; i < AUTHORS_PER_BOOK; i++) {
+                builder.addAuthorLink(book, 1 + random.nextInt(authors));
+            }
+            for (int i = 0; i < TAGS_PER_BOOK; i++) {
+                builder.addTagLink(book, 1 + random.nextInt(tags));
+            }
+        }
+        CatalogSnapshot snapshot = builder.build();
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        long bytes = snapshot.estimatedBytes();
+        System.out.printf("Built snapshot of %d books in %d ms%n", snapshot.size(), buildMillis);
+        System.out.printf("Estimated size: %d KiB, %d KiB per 100k books%n", bytes / 1024,
+                bytes * 100_000 / snapshot.size() / 1024);
+
+        int lookups = 10_000_000;
+        int[] keys = new int[1 << 16];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 1 + random.nextInt(books);
+        }
+        long checksum = 0;
+        // Warm up, then measure
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                int index = snapshot.indexOf(keys[i & (keys.length - 1)]);
+                checksum += snapshot.getYear(index) + snapshot.getNumberOfPages(index);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round == 1) {
+                System.out.printf("Lookup by ID: %.1f ns per lookup (checksum %d)%n",
+                        (double) elapsed / lookups, checksum);
+            }
+        }
+
+        long start = System.nanoTime();
+        int materialized = 100_000;
+        for (int i = 0; i < materialized; i++) {
+            checksum += snapshot.toBook(snapshot.indexOf(keys[i & (keys.length - 1)])).getYear();
+        }
+        System.out.printf("Lookup and materialize book: %.2f us per book (checksum %d)%n",
+                (System.nanoTime() - start) / 1000.0 / materialized, checksum);
+
+        start = System.nanoTime();
+        CatalogSnapshot updated = snapshot.withoutBook(books / 2);
+        System.out.printf("Copy-on-write delete: %.2f ms, %d books left%n",
+                (System.nanoTime() - start) / 1_000_000.0, updated.size());
+    }
+}
@@ -0,0 +1,79 @@
+package no.ntnu.books.RestAPI.related;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import no.ntnu.books.RestAPI.readmodel.CatalogSnapshot;
+
+/**
+ * Measures how long it takes to build the {@link RelatedBooksIndex}, to look up related books and
+ * to apply an incremental update, on a synthetic catalog. Not part of the test suite; run the main
+ * method directly.
+ *
+ * Arguments: [number of books, default 1000000]
+ */
+public class RelatedBooksBenchmark {
+
+    public static void main(String[] args) {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int authors = Math.max(1, books / 5);
+        int tags = Math.max(1, books / 50);
+        Random random = new Random(42);
+
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+        for (int book = 1; book <= books; book++) {
+            builder.addBook(book, "Title " + book, 1900 + book % 120, 100 + book % 900);
+            builder.addAuthorLink(book, 1 + random.nextInt(authors));
+            if (random.nextInt(4) == 0) {
+                builder.addAuthorLink(book, 1 + random.nextInt(authors));
+            }
+            for (int i = 0; i < 4; i++) {
+                builder.addTagLink(book, 1 + skewed(random, tags));
+            }
+        }
+        CatalogSnapshot snapshot = builder.build();
+        RelatedBooksIndex.Settings settings = new RelatedBooksIndex.Settings(20, 2.0f, 1.0f, 1000);
+
+        System.out.printf("Catalog: %d books, %d authors, %d tags, %d threads%n", books, authors,
+                tags, ForkJoinPool.commonPool().getParallelism());
+        RelatedBooksIndex index = null;
+        for (int round = 1; round <= 3; round++) {
+            long start = System.nanoTime();
+            index = RelatedBooksIndex.build(snapshot, settings, ForkJoinPool.commonPool());
+            System.out.printf("Build %d: %d ms%n", round, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        int queries = 1_000_000;
+        long checksum = 0;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                RelatedBooksIndex.Neighbors related = index.related(1 + random.nextInt(books));
+                checksum += related.size() > 0 ? related.ids()[0] : 0;
+            }
+            if (round == 1) {
+                System.out.printf("Query: %.1f ns per lookup (checksum %d)%n",
+                        (System.nanoTime() - start) / (double) queries, checksum);
+            }
+        }
+
+        int updates = 1000;
+        long start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            int book = 1 + random.nextInt(books);
+            index.update(book, new int[] {
+                    RelatedBooksIndex.authorFeature(1 + random.nextInt(authors)),
+                    RelatedBooksIndex.tagFeature(1 + skewed(random, tags)),
+                    RelatedBooksIndex.tagFeature(1 + skewed(random, tags))});
+        }
+        System.out.printf("Incremental update: %.2f ms per changed book%n",
+                (System.nanoTime() - start) / 1_000_000.0 / updates);
+    }
+
+    /**
+     * Pick a tag with a skewed popularity, so a few tags are on very many books.
+     */
+    private static int skewed(Random random, int count) {
+        double u = random.nextDouble();
+        return (int) (count * u * u * u);
+    }
+}
@@ -0,0 +1,95 @@
+package no.ntnu.books.RestAPI.related;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import no.ntnu.books.RestAPI.readmodel.CatalogSnapshot;
+
+class RelatedBooksIndexTest {
+
+    private static final RelatedBooksIndex.Settings SETTINGS =
+            new RelatedBooksIndex.Settings(20, 2.0f, 1.0f, 1000);
+
+    @Test
+    void ranksBooksByTheWeightOfWhatTheyShare() {
+        RelatedBooksIndex index = build(SETTINGS);
+
+        // The shared author weighs more than the shared tag, ties go to the lower ID
+        assertArrayEquals(new int[] {2, 3, 4}, index.related(1).ids());
+        assertArrayEquals(new int[] {6}, index.related(5).ids());
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    void keepsAtMostTheConfiguredNumberOfNeighbors() {
+        RelatedBooksIndex index = build(new RelatedBooksIndex.Settings(2, 2.0f, 1.0f, 1000));
+
+        assertArrayEquals(new int[] {2, 3}, index.related(1).ids());
+    }
+
+    @Test
+    void ignoresFeaturesSharedByTooManyBooks() {
+        RelatedBooksIndex index = build(new RelatedBooksIndex.Settings(20, 2.0f, 1.0f, 2));
+
+        // The author of books 1 to 3 is on more than two books
+        assertArrayEquals(new int[] {4}, index.related(1).ids());
+    }
+
+    @Test
+    void addedBookIsRelatedBothWays() {
+        RelatedBooksIndex index = build(SETTINGS);
+
+        index.update(7, new int[] {RelatedBooksIndex.authorFeature(10),
+                RelatedBooksIndex.tagFeature(21)});
+
+        assertArrayEquals(new int[] {1, 2, 3, 5, 6}, index.related(7).ids());
+        assertTrue(index.related(1).indexOf(7) >= 0);
+        assertTrue(index.related(5).indexOf(7) >= 0);
+        assertEquals(7, index.size());
+    }
+
+    @Test
+    void changedBookMovesToItsNewNeighbors() {
+        RelatedBooksIndex index = build(SETTINGS);
+
+        // Book 4 loses the tag it shared with book 1 and gets the one of books 5 and 6
+        index.update(4, new int[] {RelatedBooksIndex.tagFeature(21)});
+
+        assertArrayEquals(new int[] {2, 3}, index.related(1).ids());
+        assertArrayEquals(new int[] {5, 6}, index.related(4).ids());
+        assertTrue(index.related(5).indexOf(4) >= 0);
+    }
+
+    @Test
+    void deletedBookIsRemovedFromEveryNeighborList() {
+        RelatedBooksIndex index = build(SETTINGS);
+
+        index.update(2, null);
+
+        assertArrayEquals(new int[] {3, 4}, index.related(1).ids());
+        assertArrayEquals(new int[] {1}, index.related(3).ids());
+        assertEquals(0, index.related(2).size());
+        assertEquals(5, index.size());
+    }
+
+    private static RelatedBooksIndex build(RelatedBooksIndex.Settings settings) {
+        return RelatedBooksIndex.build(catalog(), settings, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Books 1 to 3 share author 10, books 1 and 4 share tag 20, books 5 and 6 share tag 21.
+     */
+    private static CatalogSnapshot catalog() {
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+        for (int book = 1; book <= 6; book++) {
+            builder.addBook(book, "Book " + book, 2000, 100);
+        }
+        builder.addAuthorLink(1, 10).addAuthorLink(2, 10).addAuthorLink(3, 10);
+        builder.addTagLink(1, 20).addTagLink(4, 20);
+        builder.addTagLink(5, 21).addTagLink(6, 21);
+        return builder.build();
+    }
+}
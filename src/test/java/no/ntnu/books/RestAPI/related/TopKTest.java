@@ -0,0 +1,63 @@
+package no.ntnu.books.RestAPI.related;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class TopKTest {
+
+    @Test
+    void keepsTheBestBooksBestFirst() {
+        TopK topK = new TopK(3);
+        topK.offer(1, 0.5f);
+        topK.offer(2, 2.0f);
+        topK.offer(3, 1.0f);
+        topK.offer(4, 3.0f);
+        topK.offer(5, 0.1f);
+
+        RelatedBooksIndex.Neighbors best = topK.drain();
+
+        assertArrayEquals(new int[] {4, 2, 3}, best.ids());
+        assertEquals(3.0f, best.scores()[0], 0f);
+        assertEquals(2.0f, best.scores()[1], 0f);
+        assertEquals(1.0f, best.scores()[2], 0f);
+    }
+
+    @Test
+    void equalScoresAreOrderedByLowerId() {
+        TopK topK = new TopK(2);
+        topK.offer(9, 1.0f);
+        topK.offer(3, 1.0f);
+        topK.offer(5, 1.0f);
+
+        assertArrayEquals(new int[] {3, 5}, topK.drain().ids());
+    }
+
+    @Test
+    void keepsFewerBooksIfFewerAreOffered() {
+        TopK topK = new TopK(5);
+        topK.offer(1, 1.0f);
+        topK.offer(2, 4.0f);
+
+        assertArrayEquals(new int[] {2, 1}, topK.drain().ids());
+    }
+
+    @Test
+    void drainingResetsForReuse() {
+        TopK topK = new TopK(2);
+        topK.offer(1, 1.0f);
+        topK.drain();
+        topK.offer(2, 2.0f);
+
+        assertArrayEquals(new int[] {2}, topK.drain().ids());
+    }
+
+    @Test
+    void keepsNothingForZero() {
+        TopK topK = new TopK(0);
+        topK.offer(1, 1.0f);
+
+        assertEquals(0, topK.drain().size());
+    }
+}
@@ -0,0 +1,54 @@
+package no.ntnu.books.RestAPI.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+import no.ntnu.books.RestAPI.models.Author;
+import no.ntnu.books.RestAPI.models.Book;
+import no.ntnu.books.RestAPI.repositories.AuthorRepository;
+import no.ntnu.books.RestAPI.repositories.BookRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuthorServiceTest {
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Test
+    void booksByAuthorArePagedAfterTheLastBookSeen() {
+        Author author = new Author(0, "Terry", "Pratchett", 1948);
+        for (int i = 1; i <= 3; i++) {
+            author.addBook(bookRepository.save(new Book(0, "Discworld " + i, 1983 + i, 300)));
+        }
+        authorRepository.save(author);
+        List<Integer> bookIds = author.getBooks().stream().map(Book::getId).sorted().toList();
+
+        Slice<Book> first = authorService.getBooksByAuthor(author.getId(), 0, 2).orElseThrow();
+        assertEquals(bookIds.subList(0, 2), first.getContent().stream().map(Book::getId).toList());
+        assertTrue(first.hasNext());
+
+        int after = first.getContent().get(1).getId();
+        Slice<Book> second = authorService.getBooksByAuthor(author.getId(), after, 2).orElseThrow();
+        assertEquals(bookIds.subList(2, 3), second.getContent().stream().map(Book::getId).toList());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void booksOfAnUnknownAuthorAreNotFound() {
+        assertTrue(authorService.getBooksByAuthor(Integer.MAX_VALUE, 0, 20).isEmpty());
+    }
+}
@@ -0,0 +1,113 @@
+package no.ntnu.books.RestAPI.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import no.ntnu.books.RestAPI.models.Book;
+import no.ntnu.books.RestAPI.models.BookChange;
+import no.ntnu.books.RestAPI.models.BookChangePage;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookChangeFeedTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookChangeFeed changeFeed;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void interleavedWritersGetSequenceNumbersInCommitOrder() throws Exception {
+        CountDownLatch firstRecorded = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+        try {
+            // The first writer records its change, then keeps its transaction open
+            Future<Book> first = writers.submit(() -> transaction.execute(status -> {
+                Book book = bookService.addBook(new Book(0, "First writer", 2001, 100));
+                firstRecorded.countDown();
+                awaitUninterruptibly(releaseFirst);
+                return book;
+            }));
+            assertTrue(firstRecorded.await(10, TimeUnit.SECONDS));
+            Future<Book> second = writers.submit(
+                    () -> bookService.addBook(new Book(0, "Second writer", 2002, 200)));
+
+            // The second writer cannot get a sequence number until the first one has committed
+            Thread.sleep(200);
+            assertFalse(second.isDone());
+            releaseFirst.countDown();
+            int firstBookId = first.get(10, TimeUnit.SECONDS).getId();
+            int secondBookId = second.get(10, TimeUnit.SECONDS).getId();
+
+            List<BookChange> changes = allChanges();
+            BookChange firstChange = changeFor(changes, firstBookId);
+            BookChange secondChange = changeFor(changes, secondBookId);
+            assertEquals(firstChange.getId() + 1, secondChange.getId());
+
+            // A poller that had seen everything before the first change gets both, in order
+            BookChangePage page = changeFeed.getChanges(firstChange.getId() - 1, 2);
+            assertEquals(List.of(firstBookId, secondBookId),
+                    page.changes().stream().map(BookChange::getBookId).toList());
+        } finally {
+            releaseFirst.countDown();
+            writers.shutdownNow();
+        }
+    }
+
+    @Test
+    void changeCarriesTheTagsOfTheBook() {
+        Book book = new Book(0, "Tagged", 2003, 300);
+        book.addTag("change-feed-test");
+        Book saved = bookService.addBook(book);
+
+        BookChange change = changeFor(allChanges(), saved.getId());
+        assertEquals(BookChange.Type.CREATED, change.getType());
+        assertEquals(1, change.getTagIds().size());
+        assertEquals(List.of(), change.getAuthorIds());
+    }
+
+    private List<BookChange> allChanges() {
+        List<BookChange> changes = new ArrayList<>();
+        BookChangePage page;
+        long since = 0;
+        do {
+            page = changeFeed.getChanges(since, BookChangeFeed.MAX_PAGE_SIZE);
+            changes.addAll(page.changes());
+            since = page.nextSince();
+        } while (page.hasMore());
+        return changes;
+    }
+
+    private static BookChange changeFor(List<BookChange> changes, int bookId) {
+        return changes.stream().filter(change -> change.getBookId() == bookId).findFirst()
+                .orElseThrow();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
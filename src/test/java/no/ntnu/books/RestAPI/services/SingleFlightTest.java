@@ -0,0 +1,131 @@
+package no.ntnu.books.RestAPI.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void callersWhileACallIsInFlightShareItsResult() throws Exception {
+        SingleFlight<Integer, Object> group =
+                new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Object value = new Object();
+
+        CompletableFuture<Object> leader = CompletableFuture.supplyAsync(
+                () -> group.execute(1, () -> {
+                    loads.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return value;
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Object> follower = CompletableFuture.supplyAsync(
+                () -> group.execute(1, () -> {
+                    loads.incrementAndGet();
+                    return new Object();
+                }));
+        awaitShared(1);
+        release.countDown();
+
+        assertSame(value, leader.get(5, TimeUnit.SECONDS));
+        assertSame(value, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(0.5, group.getCoalescingRatio(), 0.0001);
+    }
+
+    @Test
+    void failureIsThrownToEveryWaitingCaller() throws Exception {
+        SingleFlight<Integer, Object> group =
+                new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        CompletableFuture<Object> leader = CompletableFuture.supplyAsync(
+                () -> group.execute(1, () -> {
+                    started.countDown();
+                    await(release);
+                    throw failure;
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Object> follower =
+                CompletableFuture.supplyAsync(() -> group.execute(1, Object::new));
+        awaitShared(1);
+        release.countDown();
+
+        ExecutionException leaderFailure =
+                assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerFailure =
+                assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertSame(failure, leaderFailure.getCause());
+        assertSame(failure, followerFailure.getCause());
+    }
+
+    @Test
+    void waitingCallerGivesUpAfterTheTimeout() throws Exception {
+        SingleFlight<Integer, Object> group =
+                new SingleFlight<>("test", Duration.ofMillis(50), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture.runAsync(() -> group.execute(1, () -> {
+                started.countDown();
+                await(release);
+                return new Object();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(CoalescedCallTimeoutException.class, () -> group.execute(1, Object::new));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void completedCallsAreNotReused() {
+        SingleFlight<Integer, Object> group =
+                new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        group.execute(1, loads::incrementAndGet);
+        group.execute(1, loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+        assertEquals(0.0, group.getCoalescingRatio(), 0.0001);
+    }
+
+    /**
+     * Wait until the given number of callers have found a call in flight to wait for.
+     */
+    private void awaitShared(int shared) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("books.coalescing.shared").counter().count() < shared) {
+            assertTrue(System.nanoTime() < deadline, "no caller joined the call in flight");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}